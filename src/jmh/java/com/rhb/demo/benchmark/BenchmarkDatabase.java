@@ -0,0 +1,82 @@
+package com.rhb.demo.benchmark;
+
+import com.rhb.demo.RhbDemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts the application without the web layer against a fresh in-memory H2 database and tops it up
+ * to the requested number of employees. Rows are generated from a fixed seed so every run and every
+ * fork sees the same data. The rows are inserted once the context has started but before it is ready, so
+ * everything built from the database on {@code ApplicationReadyEvent} (search index, location projection,
+ * headcount aggregates, department cache) is built from the seeded employees.
+ */
+final class BenchmarkDatabase {
+
+    static final String[] FIRST_NAMES = {"John", "Jane", "Bob", "Alice", "Charlie", "Diana", "Eve", "Frank",
+            "Grace", "Henry", "Ivan", "Julia", "Kevin", "Laura", "Mike", "Nina", "Oscar", "Paula", "Quinn", "Rita"};
+    static final String[] LAST_NAMES = {"Doe", "Smith", "Johnson", "Williams", "Brown", "Davis", "Miller", "Wilson",
+            "Moore", "Taylor", "Anderson", "Thomas", "Jackson", "White", "Harris", "Martin", "Garcia", "Lee"};
+    static final String[] LOCATIONS = {"San Francisco", "New York", "Chicago", "Austin", "Boston", "Seattle",
+            "Denver", "Miami", "Atlanta", "Dallas"};
+
+    private static final int SAMPLE_EMPLOYEES = 10;
+    private static final int DEPARTMENTS = 50;
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(int employees) {
+        return new SpringApplicationBuilder(RhbDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .listeners(event -> {
+                    if (event instanceof ApplicationStartedEvent started) {
+                        seed(started.getApplicationContext().getBean(JdbcTemplate.class), employees);
+                    }
+                })
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.rhb.demo=WARN",
+                        "--logging.level.org.springframework.web=WARN");
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int employees) {
+        int existingDepartments = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM department", Integer.class);
+        List<Object[]> departments = new ArrayList<>();
+        for (int i = existingDepartments; i < DEPARTMENTS; i++) {
+            departments.add(new Object[]{"Department " + (i + 1), LOCATIONS[i % LOCATIONS.length]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO department (name, location) VALUES (?, ?)", departments);
+
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = SAMPLE_EMPLOYEES + 1; id <= employees; id++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = (firstName + "." + lastName + "." + id + "@example.com").toLowerCase();
+            batch.add(new Object[]{id, firstName, lastName, email, random.nextInt(DEPARTMENTS) + 1});
+            if (batch.size() == BATCH_SIZE) {
+                insertEmployees(jdbcTemplate, batch);
+            }
+        }
+        insertEmployees(jdbcTemplate, batch);
+        jdbcTemplate.execute("ALTER SEQUENCE employee_seq RESTART WITH " + (Math.max(employees, SAMPLE_EMPLOYEES) + 1));
+    }
+
+    private static void insertEmployees(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (?, ?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.rhb.demo.benchmark;
+
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class EmployeeServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private final AtomicLong createdEmployees = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(employees);
+        employeeService = context.getBean(EmployeeService.class);
+        // the JOIN endpoints are served from in-memory structures, which must hold the seeded rows
+        int loaded = employeeService.getEmployeesWithDepartment().size();
+        if (loaded != employees) {
+            throw new IllegalStateException("Expected " + employees + " employees with department, found " + loaded);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class SearchShape {
+
+        /**
+         * common: a first name shared by ~5% of rows; rare: one email; none: no match;
+         * short: below trigram length, so every row is verified; deep: common keyword, page 50.
+         */
+        @Param({"common", "rare", "none", "short", "deep"})
+        public String shape;
+
+        String keyword;
+        Pageable pageable;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Pageable firstPage = PageRequest.of(0, 10, Sort.by("id"));
+            switch (shape) {
+                case "common" -> {
+                    keyword = "grace";
+                    pageable = firstPage;
+                }
+                case "rare" -> {
+                    keyword = "john.doe@example.com";
+                    pageable = firstPage;
+                }
+                case "none" -> {
+                    keyword = "zzzz";
+                    pageable = firstPage;
+                }
+                case "short" -> {
+                    keyword = "ja";
+                    pageable = firstPage;
+                }
+                case "deep" -> {
+                    keyword = "grace";
+                    pageable = PageRequest.of(50, 10, Sort.by("lastName"));
+                }
+                default -> throw new IllegalArgumentException("Unknown search shape: " + shape);
+            }
+        }
+    }
+
+    @Benchmark
+    public Page<Employee> searchEmployees(SearchShape search) {
+        return employeeService.searchEmployees(search.keyword, search.pageable);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<EmployeeDepartmentDTO> getEmployeesWithDepartment() {
+        return employeeService.getEmployeesWithDepartment();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<EmployeeDepartmentDTO> getEmployeesByLocation() {
+        return employeeService.getEmployeesByLocation("Chicago");
+    }
+
+    @Benchmark
+    public Employee createEmployee() {
+        long n = createdEmployees.incrementAndGet();
+        Department department = new Department();
+        department.setId(n % 4 + 1);
+        return employeeService.createEmployee(new Employee(null, "Bench", "Mark", "bench.mark." + n + "@example.com", department));
+    }
+}
@@ -0,0 +1,149 @@
+package com.rhb.demo.benchmark;
+
+import com.rhb.demo.RhbDemoApplication;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires {@code calls} concurrent POST /api/external/call requests at the running application, each of which
+ * calls a local stub that answers after {@code delayMs}. The score is the time until all of them completed,
+ * so calls divided by the score is the throughput. With platform threads Tomcat's 200 workers cap the number
+ * of calls in flight; with {@code virtualThreads=true} (Java 21, -Pjava21) every call gets its own thread.
+ * The response cache and the call limiter are switched off and the connection pool sized to {@code calls}, so
+ * each request makes its own upstream call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class ExternalCallConcurrencyBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"2000"})
+    public int calls;
+
+    @Param({"200"})
+    public int delayMs;
+
+    private HttpServer stub;
+    private ExecutorService stubExecutor;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, build and run with -Pjava21");
+        }
+
+        stubExecutor = Executors.newCachedThreadPool();
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+
+        context = new SpringApplicationBuilder(RhbDemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.rhb.demo=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--app.logging.request.body-sample-rate=0",
+                        // every call must reach the stub: no merging of concurrent calls to the same URL,
+                        // no adaptive per-host limit and a connection per call, however long the lease takes
+                        "--app.external.cache.enabled=false",
+                        "--app.external.limiter.enabled=false",
+                        "--app.external.http.max-connections=" + calls,
+                        "--app.external.http.max-connections-per-host=" + calls,
+                        "--app.external.http.pool-timeout=1m");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        String body = "{\"url\": \"http://127.0.0.1:" + stub.getAddress().getPort() + "/slow\"}";
+        request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/external/call"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int concurrentSlowCalls() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<HttpResponse<String>>[] responses = new CompletableFuture[calls];
+        for (int i = 0; i < calls; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        }
+        CompletableFuture.allOf(responses).join();
+
+        int failed = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> result = response.join();
+            // the service reports remote failures in a 200 body
+            if (result.statusCode() != 200 || !result.body().contains("successfully")) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + calls + " calls failed");
+        }
+        return calls;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rhb.demo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes entities and DTOs the way the controllers return them, with a mapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<Employee> employees;
+    private List<EmployeeDepartmentDTO> dtos;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        employees = new ArrayList<>(rows);
+        dtos = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String firstName = BenchmarkDatabase.FIRST_NAMES[i % BenchmarkDatabase.FIRST_NAMES.length];
+            String lastName = BenchmarkDatabase.LAST_NAMES[i % BenchmarkDatabase.LAST_NAMES.length];
+            String email = (firstName + "." + lastName + "." + i + "@example.com").toLowerCase();
+            String location = BenchmarkDatabase.LOCATIONS[i % BenchmarkDatabase.LOCATIONS.length];
+            Department department = new Department((long) i % 4 + 1, "Department " + (i % 4 + 1), location);
+            employees.add(new Employee((long) i + 1, firstName, lastName, email, department));
+            dtos.add(new EmployeeDepartmentDTO((long) i + 1, firstName, lastName, email, department.getId(), department.getName(), location));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeEmployees() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployeeDepartmentDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,104 @@
+package com.rhb.demo.aspect;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands request log entries from request threads to a single background writer through a bounded
+ * ring buffer. Request threads never block: when the buffer is full the entry is dropped and counted.
+ */
+@Component
+@Lazy
+public class AsyncRequestLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingAspect.class);
+
+    private final BlockingQueue<RequestLogEntry> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long reportedDropped;
+
+    public AsyncRequestLogWriter(@Value("${app.logging.request.buffer-size:8192}") int bufferSize) {
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.writer = new Thread(this::drain, "request-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void submit(RequestLogEntry entry) {
+        if (!buffer.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drain() {
+        List<RequestLogEntry> batch = new ArrayList<>(256);
+        while (running || !buffer.isEmpty()) {
+            try {
+                RequestLogEntry first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, 255);
+                batch.forEach(this::write);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    buffer.drainTo(batch);
+                    batch.forEach(this::write);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not write request log entry: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+            long totalDropped = dropped.get();
+            if (totalDropped > reportedDropped) {
+                log.warn("Request log buffer full, dropped {} entries", totalDropped - reportedDropped);
+                reportedDropped = totalDropped;
+            }
+        }
+    }
+
+    private void write(RequestLogEntry entry) {
+        String line = "time=" + Instant.ofEpochMilli(entry.timestamp())
+                + " method=" + entry.httpMethod()
+                + " uri=" + entry.uri()
+                + " handler=" + entry.handler()
+                + " outcome=" + entry.outcome()
+                + " durationMs=" + String.format("%.3f", entry.durationNanos() / 1_000_000.0)
+                + " clientIp=" + entry.clientIp()
+                + (entry.requestBody() != null ? " request=" + entry.requestBody() : "")
+                + (entry.responseBody() != null ? " response=" + entry.responseBody() : "")
+                + (entry.error() != null ? " error=\"" + entry.error() + "\"" : "");
+        if (entry.failed()) {
+            log.error(line);
+        } else {
+            log.info(line);
+        }
+    }
+}
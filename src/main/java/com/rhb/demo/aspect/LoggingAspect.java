@@ -4,20 +4,49 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
 @Aspect
 @Component
+@Lazy
 public class LoggingAspect {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper;
+    private final AsyncRequestLogWriter requestLogWriter;
+    private final double bodySampleRate;
+    private final int maxBodyLength;
+
+    public LoggingAspect(ObjectMapper objectMapper,
+                         AsyncRequestLogWriter requestLogWriter,
+                         @Value("${app.logging.request.body-sample-rate:1.0}") double bodySampleRate,
+                         @Value("${app.logging.request.max-body-length:1024}") int maxBodyLength) {
+        this.objectMapper = objectMapper;
+        this.requestLogWriter = requestLogWriter;
+        this.bodySampleRate = bodySampleRate;
+        this.maxBodyLength = maxBodyLength;
+    }
 
     @Pointcut("execution(* com.rhb.demo.controller..*(..))")
     public void controllerMethods() {}
@@ -27,72 +56,43 @@ public class LoggingAspect {
 
     @Around("controllerMethods()")
     public Object logAroundController(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
-
-        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        HttpServletRequest request = attributes != null ? attributes.getRequest() : null;
-
-        if (request != null) {
-            log.info("========== REQUEST ==========");
-            log.info("HTTP Method: {}", request.getMethod());
-            log.info("Request URI: {}", request.getRequestURI());
-            log.info("Controller: {}", joinPoint.getSignature().getDeclaringTypeName());
-            log.info("Method: {}", joinPoint.getSignature().getName());
-            log.info("Client IP: {}", request.getRemoteAddr());
-            
-            Object[] args = joinPoint.getArgs();
-            if (args != null && args.length > 0) {
-                for (Object arg : args) {
-                    if (arg != null && !arg.getClass().getName().startsWith("org.springframework")) {
-                        try {
-                            log.info("Request Body: {}", objectMapper.writeValueAsString(arg));
-                        } catch (Exception e) {
-                            log.debug("Could not serialize argument");
-                        }
-                    }
-                }
-            }
+        if (!log.isErrorEnabled()) {
+            return joinPoint.proceed();
         }
 
+        long startTime = System.nanoTime();
+        boolean logSuccess = log.isInfoEnabled();
+        boolean sampleBodies = logSuccess && bodySampleRate > 0 && (bodySampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < bodySampleRate);
+        String requestBody = sampleBodies ? serializeArguments(joinPoint) : null;
+
         try {
             Object result = joinPoint.proceed();
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            log.info("========== RESPONSE ==========");
-            if (result != null) {
-                try {
-                    log.info("Response: {}", objectMapper.writeValueAsString(result));
-                } catch (Exception e) {
-                    log.info("Response Type: {}", result.getClass().getSimpleName());
-                }
+            if (logSuccess) {
+                requestLogWriter.submit(entry(joinPoint, startTime, outcome(result), requestBody, sampleBodies ? serializeResult(result) : null, null));
             }
-            log.info("Execution Time: {} ms", executionTime);
-            log.info("=============================");
-            
             return result;
         } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - startTime;
-            log.error("========== EXCEPTION ==========");
-            log.error("Method: {}.{}", joinPoint.getSignature().getDeclaringTypeName(), joinPoint.getSignature().getName());
-            log.error("Exception: {}", e.getMessage());
-            log.error("Execution Time: {} ms", executionTime);
-            log.error("==============================");
+            requestLogWriter.submit(entry(joinPoint, startTime, "EXCEPTION", requestBody, null, e.getClass().getSimpleName() + ": " + e.getMessage()));
             throw e;
         }
     }
 
     @Before("serviceMethods()")
     public void logBeforeService(JoinPoint joinPoint) {
-        log.debug("==> Service: {}.{}", 
-                joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName());
+        if (log.isDebugEnabled()) {
+            log.debug("==> Service: {}.{}",
+                    joinPoint.getSignature().getDeclaringTypeName(),
+                    joinPoint.getSignature().getName());
+        }
     }
 
     @AfterReturning(pointcut = "serviceMethods()", returning = "result")
     public void logAfterService(JoinPoint joinPoint, Object result) {
-        log.debug("<== Service: {}.{}", 
-                joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName());
+        if (log.isDebugEnabled()) {
+            log.debug("<== Service: {}.{}",
+                    joinPoint.getSignature().getDeclaringTypeName(),
+                    joinPoint.getSignature().getName());
+        }
     }
 
     @AfterThrowing(pointcut = "serviceMethods()", throwing = "exception")
@@ -102,5 +102,118 @@ public class LoggingAspect {
                 joinPoint.getSignature().getName(),
                 exception.getMessage());
     }
-}
 
+    private RequestLogEntry entry(ProceedingJoinPoint joinPoint, long startTime, String outcome, String requestBody, String responseBody, String error) {
+        long duration = System.nanoTime() - startTime;
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        HttpServletRequest request = attributes != null ? attributes.getRequest() : null;
+
+        return new RequestLogEntry(
+                System.currentTimeMillis(),
+                request != null ? request.getMethod() : null,
+                request != null ? request.getRequestURI() : null,
+                request != null ? request.getRemoteAddr() : null,
+                joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName(),
+                outcome,
+                duration,
+                requestBody,
+                responseBody,
+                error);
+    }
+
+    private String outcome(Object result) {
+        return result instanceof ResponseEntity<?> response ? String.valueOf(response.getStatusCode().value()) : "OK";
+    }
+
+    // the @RequestBody argument when the handler has one, otherwise every argument that can be serialized
+    private String serializeArguments(ProceedingJoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        if (args == null) {
+            return null;
+        }
+        Annotation[][] annotations = ((MethodSignature) joinPoint.getSignature()).getMethod().getParameterAnnotations();
+        List<Object> loggable = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null || !isSerializable(args[i])) {
+                continue;
+            }
+            if (Arrays.stream(annotations[i]).anyMatch(RequestBody.class::isInstance)) {
+                return serialize(args[i]);
+            }
+            loggable.add(args[i]);
+        }
+        if (loggable.isEmpty()) {
+            return null;
+        }
+        return serialize(loggable.size() == 1 ? loggable.get(0) : loggable);
+    }
+
+    private String serializeResult(Object result) {
+        Object body = result instanceof ResponseEntity<?> response ? response.getBody() : result;
+        if (body == null) {
+            return null;
+        }
+        return isSerializable(body) ? serialize(body) : body.getClass().getSimpleName();
+    }
+
+    private boolean isSerializable(Object value) {
+        return !value.getClass().getName().startsWith("org.springframework")
+                && !(value instanceof InputStream)
+                && !(value instanceof StreamingResponseBody);
+    }
+
+    private String serialize(Object value) {
+        LimitedWriter writer = new LimitedWriter(maxBodyLength);
+        try {
+            objectMapper.writeValue(writer, value);
+        } catch (Exception e) {
+            if (!writer.isTruncated()) {
+                return value.getClass().getSimpleName();
+            }
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Collects at most {@code limit} characters and aborts serialization once the limit is exceeded,
+     * so the cost of logging a large payload is bounded by the truncation length.
+     */
+    private static final class LimitedWriter extends Writer {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private final int limit;
+        private boolean truncated;
+
+        LimitedWriter(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int remaining = limit - buffer.length();
+            if (length > remaining) {
+                buffer.append(chars, offset, Math.max(remaining, 0)).append("...(truncated)");
+                truncated = true;
+                throw new IOException("Log body limit reached");
+            }
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+}
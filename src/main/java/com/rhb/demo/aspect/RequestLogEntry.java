@@ -0,0 +1,17 @@
+package com.rhb.demo.aspect;
+
+record RequestLogEntry(long timestamp,
+                       String httpMethod,
+                       String uri,
+                       String clientIp,
+                       String handler,
+                       String outcome,
+                       long durationNanos,
+                       String requestBody,
+                       String responseBody,
+                       String error) {
+
+    boolean failed() {
+        return error != null;
+    }
+}
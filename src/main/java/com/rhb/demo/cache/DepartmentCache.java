@@ -0,0 +1,104 @@
+package com.rhb.demo.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.event.ChangeType;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.repository.DepartmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-through cache of departments. Entries are detached copies and every lookup returns a fresh copy,
+ * so callers may attach the result to an entity or modify it without affecting other threads.
+ * Misses are loaded on the calling thread outside the cache's internal locks, so a virtual thread never
+ * holds a monitor across the query; concurrent misses for the same id wait for the first loader.
+ */
+@Component
+public class DepartmentCache {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final DepartmentRepository departmentRepository;
+    private final AsyncCache<Long, Department> cache;
+    private final long maxSize;
+
+    public DepartmentCache(DepartmentRepository departmentRepository,
+                           @Value("${app.cache.department.max-size:1000}") long maxSize,
+                           @Value("${app.cache.department.ttl:10m}") Duration ttl) {
+        this.departmentRepository = departmentRepository;
+        this.maxSize = maxSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Optional<Department> find(Long id) {
+        CompletableFuture<Department> load = new CompletableFuture<>();
+        CompletableFuture<Department> cached = cache.get(id, (key, executor) -> load);
+        if (cached == load) {
+            try {
+                load.complete(departmentRepository.findById(id).map(DepartmentCache::copy).orElse(null));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return Optional.ofNullable(cached.join()).map(DepartmentCache::copy);
+    }
+
+    public void put(Department department) {
+        cache.put(department.getId(), CompletableFuture.completedFuture(copy(department)));
+    }
+
+    public void evict(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        departmentRepository.findAll(PageRequest.of(0, (int) Math.min(maxSize, Integer.MAX_VALUE))).forEach(this::put);
+        log.info("Department cache warmed with {} departments", cache.synchronous().estimatedSize());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            evict(event.getDepartmentId());
+        } else {
+            put(event.getDepartment());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.synchronous().estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadCount", stats.loadCount());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private static Department copy(Department department) {
+        return new Department(department.getId(), department.getName(), department.getLocation(), department.getVersion());
+    }
+}
@@ -0,0 +1,111 @@
+package com.rhb.demo.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.EmployeeRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Total counts for employee searches, computed on a background thread (and so on its own connection) while
+ * the caller loads the page content. Counts are kept for {@code app.search.count.ttl} and dropped on any
+ * employee change; concurrent requests for the same keyword share one count query.
+ * If no count thread has picked the query up by the time the caller needs it, the caller runs it itself,
+ * so a busy executor or connection pool never leaves a request waiting on a queued count.
+ */
+@Component
+public class EmployeeCountCache {
+
+    private static final String ALL = "";
+
+    private final EmployeeRepository employeeRepository;
+    private final AsyncCache<String, Long> cache;
+    private final ThreadPoolExecutor executor;
+
+    public EmployeeCountCache(EmployeeRepository employeeRepository,
+                              @Value("${app.search.count.ttl:5s}") Duration ttl,
+                              @Value("${app.search.count.max-entries:1000}") long maxEntries,
+                              @Value("${app.search.count.threads:2}") int threads) {
+        this.employeeRepository = employeeRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("employee-count-");
+        threadFactory.setDaemon(true);
+        // a rejected count is simply left for the caller to run in await()
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100),
+                threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Starts counting the employees matching {@code searchKeyword} (a lower-cased {@code LIKE} pattern, or
+     * {@code null} for all employees) unless a recent or running count can be reused.
+     */
+    public CompletableFuture<Long> count(String searchKeyword) {
+        CountTask task = new CountTask(searchKeyword);
+        CompletableFuture<Long> cached = cache.get(searchKeyword == null ? ALL : searchKeyword, (key, ignored) -> task);
+        if (cached == task) {
+            executor.execute(task);
+        }
+        return cached;
+    }
+
+    public long await(CompletableFuture<Long> count) {
+        if (count instanceof CountTask task) {
+            task.run();
+        }
+        try {
+            return count.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        cache.synchronous().invalidateAll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private final class CountTask extends CompletableFuture<Long> implements Runnable {
+
+        private final String searchKeyword;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        CountTask(String searchKeyword) {
+            this.searchKeyword = searchKeyword;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                complete(searchKeyword == null ? employeeRepository.count() : employeeRepository.countSearchEmployees(searchKeyword));
+            } catch (RuntimeException e) {
+                completeExceptionally(e);
+            }
+        }
+    }
+}
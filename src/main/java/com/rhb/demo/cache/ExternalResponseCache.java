@@ -0,0 +1,173 @@
+package com.rhb.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers status and length of successful outbound GETs by URL, together with their validators.
+ * Freshness follows {@code Cache-Control: max-age} (minus {@code Age}) or {@code Expires}, capped at
+ * {@code max-ttl}; {@code no-store} responses are not kept and {@code no-cache} ones are always revalidated.
+ * Stale entries stay around for {@code retention} so they can still be revalidated with a conditional GET.
+ */
+@Component
+@Lazy
+public class ExternalResponseCache {
+
+    private final boolean enabled;
+    private final long maxEntries;
+    private final Duration maxTtl;
+    private final Cache<String, CachedResponse> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public ExternalResponseCache(@Value("${app.external.cache.enabled:true}") boolean enabled,
+                                 @Value("${app.external.cache.max-entries:10000}") long maxEntries,
+                                 @Value("${app.external.cache.max-ttl:10m}") Duration maxTtl,
+                                 @Value("${app.external.cache.retention:1h}") Duration retention) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxTtl = maxTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CachedResponse get(String url) {
+        return cache.getIfPresent(url);
+    }
+
+    /**
+     * Stores a 200 response unless it forbids storing or has neither a freshness lifetime nor a validator.
+     */
+    public void store(String url, int statusCode, long contentLength, HttpHeaders headers) {
+        if (!isStorable(headers)) {
+            return;
+        }
+        CachedResponse response = new CachedResponse(statusCode, contentLength, headers.getETag(),
+                headers.getFirst(HttpHeaders.LAST_MODIFIED), freshUntil(headers));
+        if (response.expiresAtMillis() > System.currentTimeMillis() || response.hasValidators()) {
+            cache.put(url, response);
+        }
+    }
+
+    /**
+     * Extends a stale entry after the server answered its conditional GET with 304 Not Modified.
+     */
+    public void refresh(String url, CachedResponse stale, HttpHeaders headers) {
+        String etag = headers.getETag() != null ? headers.getETag() : stale.etag();
+        cache.put(url, new CachedResponse(stale.statusCode(), stale.contentLength(), etag, stale.lastModified(), freshUntil(headers)));
+    }
+
+    public void recordHit(long bytes) {
+        hits.increment();
+        savedBytes.add(bytes);
+    }
+
+    public void recordRevalidation(long bytes) {
+        revalidations.increment();
+        savedBytes.add(bytes);
+    }
+
+    public void recordCollapsed(long bytes) {
+        collapsed.increment();
+        savedBytes.add(bytes);
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long revalidationCount = revalidations.sum();
+        long collapsedCount = collapsed.sum();
+        long requests = hitCount + revalidationCount + collapsedCount + misses.sum();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("maxSize", maxEntries);
+        result.put("requests", requests);
+        result.put("hitCount", hitCount);
+        result.put("revalidatedCount", revalidationCount);
+        result.put("collapsedCount", collapsedCount);
+        result.put("missCount", misses.sum());
+        result.put("hitRate", requests == 0 ? 0.0 : (double) (hitCount + revalidationCount + collapsedCount) / requests);
+        result.put("savedBytes", savedBytes.sum());
+        return result;
+    }
+
+    private static boolean isStorable(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !cacheControl.toLowerCase(Locale.ROOT).contains("no-store");
+    }
+
+    private long freshUntil(HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        long lifetime = -1;
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-cache")) {
+                    return now;
+                }
+                if (directive.startsWith("max-age=")) {
+                    lifetime = parseSeconds(directive.substring("max-age=".length())) * 1000 - parseSeconds(headers.getFirst(HttpHeaders.AGE)) * 1000;
+                }
+            }
+        }
+        long expires = dateHeader(headers, HttpHeaders.EXPIRES);
+        if (lifetime < 0 && expires > 0) {
+            long date = dateHeader(headers, HttpHeaders.DATE);
+            lifetime = expires - (date > 0 ? date : now);
+        }
+        return now + Math.min(Math.max(lifetime, 0), maxTtl.toMillis());
+    }
+
+    private static long dateHeader(HttpHeaders headers, String name) {
+        try {
+            return headers.getFirstDate(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value.trim().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public record CachedResponse(int statusCode, long contentLength, String etag, String lastModified, long expiresAtMillis) {
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAtMillis;
+        }
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.rhb.demo.cache;
+
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the employee and department collections, bumped after every committed change, and
+ * the strong ETags built from them and from entity versions. Every tag starts with an instance token so
+ * tags issued before a restart (the in-memory database starts over) never match.
+ * A counter must be read before the data it describes is loaded, so a response is never older than its tag.
+ */
+@Component
+public class ResourceVersions {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong employees = new AtomicLong();
+    private final AtomicLong departments = new AtomicLong();
+
+    public long getEmployees() {
+        return employees.get();
+    }
+
+    public long getDepartments() {
+        return departments.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        employees.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        departments.incrementAndGet();
+    }
+
+    public String etag(Object... parts) {
+        StringBuilder tag = new StringBuilder("\"").append(instance);
+        for (Object part : parts) {
+            tag.append('-').append(part);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Strong comparison of an {@code If-Match} header against the current tag: {@code *} or one of the
+     * listed tags must match, weak tags never do.
+     */
+    public boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The entity versions an {@code If-Match} header accepts, read from its tags that start with the given
+     * parts (e.g. {@code "employee", id}), so a single-statement update can check them in its WHERE clause;
+     * {@code null} for {@code *}, empty when no listed tag is one of this instance's tags for the entity.
+     */
+    public Set<Long> versions(String ifMatch, Object... parts) {
+        String etag = etag(parts);
+        String prefix = etag.substring(0, etag.length() - 1) + "-";
+        Set<Long> versions = new HashSet<>();
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return null;
+            }
+            if (candidate.startsWith(prefix) && candidate.endsWith("\"")) {
+                String rest = candidate.substring(prefix.length(), candidate.length() - 1);
+                int end = rest.indexOf('-');
+                try {
+                    versions.add(Long.parseLong(end < 0 ? rest : rest.substring(0, end)));
+                } catch (NumberFormatException e) {
+                    // not a tag issued for this entity
+                }
+            }
+        }
+        return versions;
+    }
+}
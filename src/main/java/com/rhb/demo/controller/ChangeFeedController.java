@@ -0,0 +1,53 @@
+package com.rhb.demo.controller;
+
+import com.rhb.demo.dto.ChangeEvent;
+import com.rhb.demo.dto.ChangePage;
+import com.rhb.demo.feed.ChangeFeed;
+import com.rhb.demo.feed.ChangeSubscriptions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+    private static final int MAX_LIMIT = 10000;
+
+    private final ChangeFeed changeFeed;
+    private final ChangeSubscriptions changeSubscriptions;
+
+    @GetMapping
+    public ResponseEntity<ChangePage> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                 @RequestParam(defaultValue = "1000") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        List<ChangeEvent> events = changeFeed.since(since, limit);
+        long lastSeq = events.isEmpty() ? since : events.get(events.size() - 1).getSeq();
+        return ResponseEntity.ok(new ChangePage(events, lastSeq, lastSeq < changeFeed.getLastSeq()));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        // a reconnecting EventSource resumes after the last event it received; new streams start now
+        long after = lastEventId != null ? lastEventId : since != null ? since : changeFeed.getLastSeq();
+        return changeSubscriptions.subscribe(after);
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<Map<String, Object>> getStreamStats() {
+        return ResponseEntity.ok(changeSubscriptions.stats());
+    }
+}
@@ -1,11 +1,20 @@
 package com.rhb.demo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.dto.DepartmentHeadcount;
+import com.rhb.demo.dto.DepartmentPatch;
+import com.rhb.demo.dto.LocationHeadcount;
 import com.rhb.demo.entity.Department;
 import com.rhb.demo.service.DepartmentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -18,30 +27,82 @@ public class DepartmentController {
     @Autowired
     private DepartmentService departmentService;
 
+    @Autowired
+    private DepartmentCache departmentCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Department>> getAllDepartments() {
-        return ResponseEntity.ok(departmentService.getAllDepartments());
+    public ResponseEntity<List<Department>> getAllDepartments(WebRequest request) {
+        String etag = departmentService.getDepartmentsETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(departmentService.getAllDepartments());
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllDepartments(WebRequest request) {
+        String etag = NdjsonResponseBody.etag(departmentService.getDepartmentsETag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // checkNotModified has already written the ETag header, streaming responses would repeat it
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(NdjsonResponseBody.of(objectMapper, departmentService::streamAllDepartments));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Department> getDepartmentById(@PathVariable Long id) {
-        return ResponseEntity.ok(departmentService.getDepartmentById(id));
+    public ResponseEntity<Department> getDepartmentById(@PathVariable Long id, WebRequest request) {
+        Department department = departmentService.getDepartmentById(id);
+        String etag = departmentService.getETag(department);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(department);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(departmentCache.getStats());
     }
 
     @PostMapping
     public ResponseEntity<Department> createDepartment(@RequestBody Department department) {
         Department created = departmentService.createDepartment(department);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(departmentService.getETag(created)).body(created);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Department> updateDepartment(@PathVariable Long id, @RequestBody Department department) {
-        return ResponseEntity.ok(departmentService.updateDepartment(id, department));
+    public ResponseEntity<Department> updateDepartment(@PathVariable Long id, @RequestBody Department department, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Department updated = departmentService.updateDepartment(id, department, ifMatch);
+        return ResponseEntity.ok().eTag(departmentService.getETag(updated)).body(updated);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Department> patchDepartment(@PathVariable Long id, @RequestBody DepartmentPatch patch, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Department patched = departmentService.patchDepartment(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(departmentService.getETag(patched)).body(patched);
+    }
+
+    @GetMapping("/headcount")
+    public ResponseEntity<List<DepartmentHeadcount>> getHeadcountByDepartment() {
+        return ResponseEntity.ok(departmentService.getHeadcountByDepartment());
+    }
+
+    @GetMapping("/headcount/byLocation")
+    public ResponseEntity<List<LocationHeadcount>> getHeadcountByLocation() {
+        return ResponseEntity.ok(departmentService.getHeadcountByLocation());
+    }
+
+    @PostMapping("/relocate")
+    public ResponseEntity<Map<String, Integer>> relocateDepartments(@RequestParam String from, @RequestParam String to) {
+        return ResponseEntity.ok(Map.of("updated", departmentService.relocateDepartments(from, to)));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, String>> deleteDepartment(@PathVariable Long id) {
-        departmentService.deleteDepartment(id);
+    public ResponseEntity<Map<String, String>> deleteDepartment(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        departmentService.deleteDepartment(id, ifMatch);
         Map<String, String> response = new HashMap<>();
         response.put("message", "Department deleted successfully");
         return ResponseEntity.ok(response);
@@ -1,17 +1,30 @@
 package com.rhb.demo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.dto.EmployeeCursor;
 import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.dto.EmployeeImportResult;
+import com.rhb.demo.dto.EmployeePatch;
 import com.rhb.demo.entity.Employee;
+import com.rhb.demo.service.EmployeeGroupCommitWriter;
+import com.rhb.demo.service.EmployeeImportService;
 import com.rhb.demo.service.EmployeeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,42 +35,95 @@ import java.util.Map;
 public class EmployeeController {
 
     private final EmployeeService employeeService;
+    private final EmployeeImportService employeeImportService;
+    private final EmployeeGroupCommitWriter employeeGroupCommitWriter;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<Employee>> getAllEmployees() {
-        return ResponseEntity.ok(employeeService.getAllEmployees());
+    public ResponseEntity<List<Employee>> getAllEmployees(WebRequest request) {
+        String etag = employeeService.getEmployeesETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(employeeService.getAllEmployees());
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees(WebRequest request) {
+        String etag = NdjsonResponseBody.etag(employeeService.getEmployeesETag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // checkNotModified has already written the ETag header, streaming responses would repeat it
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(NdjsonResponseBody.of(objectMapper, employeeService::streamAllEmployees));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id) {
-        return ResponseEntity.ok(employeeService.getEmployeeById(id));
+    public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(employeeService.getEmployeeETag(id))) {
+            return null;
+        }
+        Employee employee = employeeService.getEmployeeById(id);
+        return ResponseEntity.ok().eTag(employeeService.getETag(employee)).body(employee);
     }
 
     @PostMapping
     public ResponseEntity<Employee> createEmployee(@RequestBody Employee employee) {
-        Employee created = employeeService.createEmployee(employee);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        Employee created = employeeGroupCommitWriter.isEnabled()
+                ? employeeGroupCommitWriter.create(employee)
+                : employeeService.createEmployee(employee);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(employeeService.getETag(created)).body(created);
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<EmployeeImportResult> importEmployees(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) throws IOException {
+        return ResponseEntity.ok(employeeImportService.importEmployees(body, contentType));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Employee> updateEmployee(@PathVariable Long id, @RequestBody Employee employee) {
-        return ResponseEntity.ok(employeeService.updateEmployee(id, employee));
+    public ResponseEntity<Employee> updateEmployee(@PathVariable Long id, @RequestBody Employee employee, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Employee updated = employeeService.updateEmployee(id, employee, ifMatch);
+        return ResponseEntity.ok().eTag(employeeService.getETag(updated)).body(updated);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Employee> patchEmployee(@PathVariable Long id, @RequestBody EmployeePatch patch, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Employee patched = employeeService.patchEmployee(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(employeeService.getETag(patched)).body(patched);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, String>> deleteEmployee(@PathVariable Long id) {
-        employeeService.deleteEmployee(id);
+    public ResponseEntity<Map<String, String>> deleteEmployee(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        employeeService.deleteEmployee(id, ifMatch);
         Map<String, String> response = new HashMap<>();
         response.put("message", "Employee deleted successfully");
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<Map<String, Integer>> deleteEmployees(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(Map.of("deleted", employeeService.deleteEmployees(ids)));
+    }
+
+    @PostMapping("/reassign")
+    public ResponseEntity<Map<String, Integer>> reassignDepartment(@RequestParam Long fromDepartmentId, @RequestParam Long toDepartmentId) {
+        return ResponseEntity.ok(Map.of("updated", employeeService.reassignDepartment(fromDepartmentId, toDepartmentId)));
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> searchEmployees(@RequestParam(defaultValue = "") String keyword, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "asc") String sortDirection) {
+    public ResponseEntity<Map<String, Object>> searchEmployees(@RequestParam(defaultValue = "") String keyword, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "asc") String sortDirection, @RequestParam(required = false) String after, @RequestParam(defaultValue = "true") boolean includeTotal) {
+
+        if (after != null) {
+            return ResponseEntity.ok(searchEmployeesAfter(keyword, size, sortBy, sortDirection, after));
+        }
 
         Sort sort = sortDirection.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
+        if (!includeTotal) {
+            return ResponseEntity.ok(searchEmployeesSlice(keyword, pageable));
+        }
+
         Page<Employee> employeePage = employeeService.searchEmployees(keyword, pageable);
 
         Map<String, Object> response = new HashMap<>();
@@ -72,14 +138,58 @@ public class EmployeeController {
         return ResponseEntity.ok(response);
     }
 
+    private Map<String, Object> searchEmployeesSlice(String keyword, Pageable pageable) {
+        Slice<Employee> slice = employeeService.searchEmployeesSlice(keyword, pageable);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("employees", slice.getContent());
+        response.put("currentPage", slice.getNumber());
+        response.put("pageSize", slice.getSize());
+        response.put("hasNext", slice.hasNext());
+        response.put("hasPrevious", slice.hasPrevious());
+        return response;
+    }
+
+    private Map<String, Object> searchEmployeesAfter(String keyword, int size, String sortBy, String sortDirection, String after) {
+        Sort.Order order = sortDirection.equalsIgnoreCase("desc") ? Sort.Order.desc(sortBy) : Sort.Order.asc(sortBy);
+        EmployeeCursor cursor = after.isBlank() ? null : EmployeeCursor.decode(after);
+        Slice<Employee> slice = employeeService.searchEmployeesAfter(keyword, order, cursor, size);
+
+        List<Employee> employees = slice.getContent();
+        Map<String, Object> response = new HashMap<>();
+        response.put("employees", employees);
+        response.put("pageSize", slice.getSize());
+        response.put("hasNext", slice.hasNext());
+        response.put("nextCursor", slice.hasNext() ? EmployeeCursor.of(employees.get(employees.size() - 1), order).encode() : null);
+        return response;
+    }
+
     @GetMapping("/withDepartment")
-    public ResponseEntity<List<EmployeeDepartmentDTO>> getEmployeesWithDepartment() {
-        return ResponseEntity.ok(employeeService.getEmployeesWithDepartment());
+    public ResponseEntity<List<EmployeeDepartmentDTO>> getEmployeesWithDepartment(WebRequest request) {
+        String etag = employeeService.getEmployeesWithDepartmentETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(employeeService.getEmployeesWithDepartment());
+    }
+
+    @GetMapping(value = "/withDepartment", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEmployeesWithDepartment(WebRequest request) {
+        String etag = NdjsonResponseBody.etag(employeeService.getEmployeesWithDepartmentETag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // checkNotModified has already written the ETag header, streaming responses would repeat it
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(NdjsonResponseBody.of(objectMapper, employeeService::streamEmployeesWithDepartment));
     }
 
     @GetMapping("/byLocation/{location}")
-    public ResponseEntity<List<EmployeeDepartmentDTO>> getEmployeesByLocation(@PathVariable String location) {
-        return ResponseEntity.ok(employeeService.getEmployeesByLocation(location));
+    public ResponseEntity<List<EmployeeDepartmentDTO>> getEmployeesByLocation(@PathVariable String location, WebRequest request) {
+        String etag = employeeService.getEmployeesWithDepartmentETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(employeeService.getEmployeesByLocation(location));
     }
 }
 
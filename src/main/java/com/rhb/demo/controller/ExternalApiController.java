@@ -1,20 +1,34 @@
 package com.rhb.demo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.dto.ExternalCallResult;
 import com.rhb.demo.service.ExternalApiService;
+import com.rhb.demo.service.ExternalBatchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
+@Lazy
 @RequestMapping("/api/external")
 public class ExternalApiController {
 
     @Autowired
     private ExternalApiService externalApiService;
 
+    @Autowired
+    private ExternalBatchService externalBatchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/testGoogle")
     public ResponseEntity<Map<String, String>> testGoogle() {
         String result = externalApiService.callExternalApi("https://www.google.com");
@@ -31,5 +45,28 @@ public class ExternalApiController {
         response.put("result", result);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> callBatch(@RequestBody Map<String, List<String>> request) {
+        List<String> urls = request.get("urls");
+        externalBatchService.validate(urls);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(
+                NdjsonResponseBody.<ExternalCallResult>flushingEachRow(objectMapper, consumer -> externalBatchService.callAll(urls, consumer)));
+    }
+
+    @GetMapping("/pool/stats")
+    public ResponseEntity<Map<String, Object>> getPoolStats() {
+        return ResponseEntity.ok(externalApiService.getPoolStats());
+    }
+
+    @GetMapping("/limiter")
+    public ResponseEntity<Map<String, Object>> getLimiterState() {
+        return ResponseEntity.ok(externalApiService.getLimiterState());
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(externalApiService.getCacheStats());
+    }
 }
 
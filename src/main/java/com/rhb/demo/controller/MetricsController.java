@@ -0,0 +1,43 @@
+package com.rhb.demo.controller;
+
+import com.rhb.demo.metrics.HibernateCacheMetrics;
+import com.rhb.demo.metrics.LatencyMetrics;
+import com.rhb.demo.service.EmployeeGroupCommitWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final LatencyMetrics latencyMetrics;
+    private final HibernateCacheMetrics hibernateCacheMetrics;
+    private final EmployeeGroupCommitWriter employeeGroupCommitWriter;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(latencyMetrics.snapshot());
+    }
+
+    @PostMapping("/reset")
+    public ResponseEntity<Map<String, Object>> resetMetrics() {
+        return ResponseEntity.ok(latencyMetrics.reset());
+    }
+
+    @GetMapping("/hibernate-cache")
+    public ResponseEntity<Map<String, Object>> getHibernateCacheMetrics() {
+        return ResponseEntity.ok(hibernateCacheMetrics.snapshot());
+    }
+
+    @GetMapping("/group-commit")
+    public ResponseEntity<Map<String, Object>> getGroupCommitMetrics() {
+        return ResponseEntity.ok(employeeGroupCommitWriter.stats());
+    }
+}
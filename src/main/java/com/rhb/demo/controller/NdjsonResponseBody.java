@@ -0,0 +1,55 @@
+package com.rhb.demo.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+final class NdjsonResponseBody {
+
+    private NdjsonResponseBody() {
+    }
+
+    static <T> StreamingResponseBody of(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        return create(objectMapper, source, false);
+    }
+
+    /**
+     * Flushes after every row, for sources that produce rows slowly and whose clients act on each one.
+     */
+    static <T> StreamingResponseBody flushingEachRow(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        return create(objectMapper, source, true);
+    }
+
+    /**
+     * Tag for the NDJSON representation of a resource whose JSON representation has {@code etag}; the two
+     * bodies differ, so they must not share a strong tag.
+     */
+    static String etag(String etag) {
+        return etag == null ? null : etag.substring(0, etag.length() - 1) + "-ndjson\"";
+    }
+
+    private static <T> StreamingResponseBody create(ObjectMapper objectMapper, Consumer<Consumer<T>> source, boolean flushEachRow) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                boolean[] first = {true};
+                source.accept(row -> {
+                    try {
+                        objectMapper.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                        if (first[0] || flushEachRow) {
+                            generator.flush();
+                            first[0] = false;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.rhb.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.rhb.demo.event.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+    private long seq;
+    private String entity;
+    private ChangeType type;
+    private Long id;
+    // JSON of the row after the change, serialized once when the change is recorded; null for deletes
+    @JsonRawValue
+    private String data;
+    private Instant timestamp;
+}
@@ -0,0 +1,17 @@
+package com.rhb.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangePage {
+    private List<ChangeEvent> events;
+    // pass as since to fetch the next page
+    private long lastSeq;
+    private boolean hasMore;
+}
@@ -0,0 +1,15 @@
+package com.rhb.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepartmentHeadcount {
+    private Long departmentId;
+    private String departmentName;
+    private String location;
+    private long headcount;
+}
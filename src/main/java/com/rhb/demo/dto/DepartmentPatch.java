@@ -0,0 +1,20 @@
+package com.rhb.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fields of a PATCH request; {@code null} means "leave unchanged".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepartmentPatch {
+    private String name;
+    private String location;
+
+    public boolean hasChanges() {
+        return name != null || location != null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rhb.demo.dto;
+
+import com.rhb.demo.entity.Employee;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+public class EmployeeCursor {
+
+    public static final Set<String> SORT_PROPERTIES = Set.of("id", "firstName", "lastName", "email");
+
+    private static final String SEPARATOR = "\u0000";
+
+    private String sortBy;
+    private Sort.Direction direction;
+    private Long id;
+    private String value;
+
+    public static EmployeeCursor of(Employee employee, Sort.Order order) {
+        String value = switch (order.getProperty()) {
+            case "firstName" -> employee.getFirstName();
+            case "lastName" -> employee.getLastName();
+            case "email" -> employee.getEmail();
+            default -> null;
+        };
+        return new EmployeeCursor(order.getProperty(), order.getDirection(), employee.getId(), value);
+    }
+
+    public static EmployeeCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, 4);
+            String value = parts[3].isEmpty() ? null : parts[3];
+            return new EmployeeCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean matches(Sort.Order order) {
+        return sortBy.equals(order.getProperty()) && direction == order.getDirection();
+    }
+}
@@ -0,0 +1,27 @@
+package com.rhb.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EmployeeImportRow {
+    private String firstName;
+    private String lastName;
+    private String email;
+    private Long departmentId;
+
+    @JsonProperty("department")
+    public void setDepartment(Map<String, Object> department) {
+        if (department != null && department.get("id") instanceof Number id) {
+            this.departmentId = id.longValue();
+        }
+    }
+}
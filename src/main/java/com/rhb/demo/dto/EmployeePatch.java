@@ -0,0 +1,32 @@
+package com.rhb.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Fields of a PATCH request; {@code null} means "leave unchanged".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeePatch {
+    private String firstName;
+    private String lastName;
+    private String email;
+    private Long departmentId;
+
+    @JsonProperty("department")
+    public void setDepartment(Map<String, Object> department) {
+        if (department != null && department.get("id") instanceof Number id) {
+            this.departmentId = id.longValue();
+        }
+    }
+
+    public boolean hasChanges() {
+        return firstName != null || lastName != null || email != null || departmentId != null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.rhb.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExternalCallResult {
+    private Integer index;
+    private String url;
+    private Integer status;
+    private Long contentLength;
+    private long latencyMs;
+    private String error;
+
+    public static ExternalCallResult failed(String url, long latencyMs, String error) {
+        return new ExternalCallResult(null, url, null, null, latencyMs, error);
+    }
+}
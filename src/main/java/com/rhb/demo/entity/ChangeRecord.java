@@ -0,0 +1,47 @@
+package com.rhb.demo.entity;
+
+import com.rhb.demo.event.ChangeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outbox row of the change feed, written in the transaction that made the change. The sequence number is
+ * assigned by {@link com.rhb.demo.feed.ChangeFeed}, the payload is the JSON of the changed row.
+ */
+@Entity
+@Table(name = "ChangeOutbox", indexes = @Index(name = "idx_change_outbox_created_at", columnList = "CreatedAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeRecord {
+
+    @Id
+    @Column(name = "Seq")
+    private Long seq;
+
+    @Column(name = "EntityType", nullable = false, length = 20)
+    private String entityType;
+
+    @Column(name = "EntityId", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ChangeType", nullable = false, length = 10)
+    private ChangeType changeType;
+
+    @Column(name = "Payload", length = 4000)
+    private String payload;
+
+    @Column(name = "CreatedAt", nullable = false)
+    private Instant createdAt;
+}
@@ -1,12 +1,18 @@
 package com.rhb.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "department")
 @Table(name = "Department")
 @Data
 @NoArgsConstructor
@@ -24,5 +30,15 @@ public class Department {
 
     @Column(name = "Location")
     private String location;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "Version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
+    public Department(Long id, String name, String location) {
+        this(id, name, location, null);
+    }
 }
 
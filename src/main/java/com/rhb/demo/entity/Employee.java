@@ -1,10 +1,12 @@
 package com.rhb.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "Employee")
@@ -14,8 +16,11 @@ import lombok.NoArgsConstructor;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Employee {
 
+    public static final String DEPARTMENT_FOREIGN_KEY = "FK_EMPLOYEE_DEPARTMENT";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employee_seq", allocationSize = 50)
     @Column(name = "Id")
     private Long id;
 
@@ -29,7 +34,17 @@ public class Employee {
     private String email;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "DepartmentId")
+    @JoinColumn(name = "DepartmentId", foreignKey = @ForeignKey(name = DEPARTMENT_FOREIGN_KEY))
     private Department department;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "Version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
+    public Employee(Long id, String firstName, String lastName, String email, Department department) {
+        this(id, firstName, lastName, email, department, null);
+    }
 }
 
@@ -0,0 +1,7 @@
+package com.rhb.demo.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,33 @@
+package com.rhb.demo.event;
+
+import com.rhb.demo.entity.Department;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class DepartmentChangedEvent {
+
+    private final ChangeType type;
+    private final Long departmentId;
+    private final Department department;
+
+    public static DepartmentChangedEvent created(Department department) {
+        return new DepartmentChangedEvent(ChangeType.CREATED, department.getId(), snapshot(department));
+    }
+
+    public static DepartmentChangedEvent updated(Department department) {
+        return new DepartmentChangedEvent(ChangeType.UPDATED, department.getId(), snapshot(department));
+    }
+
+    public static DepartmentChangedEvent deleted(Long departmentId) {
+        return new DepartmentChangedEvent(ChangeType.DELETED, departmentId, null);
+    }
+
+    private static Department snapshot(Department department) {
+        return new Department(department.getId(), department.getName(), department.getLocation(), department.getVersion());
+    }
+}
@@ -0,0 +1,45 @@
+package com.rhb.demo.event;
+
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EmployeeChangedEvent {
+
+    private final ChangeType type;
+    private final Long employeeId;
+    private final EmployeeDepartmentDTO employee;
+
+    public static EmployeeChangedEvent created(Employee employee) {
+        return new EmployeeChangedEvent(ChangeType.CREATED, employee.getId(), snapshot(employee));
+    }
+
+    public static EmployeeChangedEvent updated(Employee employee) {
+        return new EmployeeChangedEvent(ChangeType.UPDATED, employee.getId(), snapshot(employee));
+    }
+
+    public static EmployeeChangedEvent deleted(Long employeeId) {
+        return new EmployeeChangedEvent(ChangeType.DELETED, employeeId, null);
+    }
+
+    private static EmployeeDepartmentDTO snapshot(Employee employee) {
+        EmployeeDepartmentDTO dto = new EmployeeDepartmentDTO(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getEmail(), null, null, null);
+        Department department = employee.getDepartment();
+        if (department != null) {
+            dto.setDepartmentId(department.getId());
+            if (Hibernate.isInitialized(department)) {
+                dto.setDepartmentName(department.getName());
+                dto.setDepartmentLocation(department.getLocation());
+            }
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,8 @@
+package com.rhb.demo.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.rhb.demo.exception;
+
+public class ExternalCallRejectedException extends RuntimeException {
+
+    public ExternalCallRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.rhb.demo.exception;
+
+public class GroupCommitTimeoutException extends RuntimeException {
+
+    public GroupCommitTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.rhb.demo.exception;
+
+public class TooManySubscribersException extends RuntimeException {
+
+    public TooManySubscribersException(String message) {
+        super(message);
+    }
+}
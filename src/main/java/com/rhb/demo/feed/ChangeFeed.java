@@ -0,0 +1,323 @@
+package com.rhb.demo.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.dto.ChangeEvent;
+import com.rhb.demo.entity.ChangeRecord;
+import com.rhb.demo.event.ChangeType;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.exception.ChangesExpiredException;
+import com.rhb.demo.repository.ChangeRecordRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered feed of committed employee and department changes. Each change gets the next sequence number and
+ * an outbox row in the transaction that made it; transactions that record changes commit one at a time, so
+ * sequence order is commit order and a reader that has seen seq {@code n} never misses a later commit below
+ * {@code n}. Sequence numbers of rolled-back transactions are skipped.
+ * <p>
+ * Ordering has a cost: a writing transaction holds the commit order lock from its first recorded change,
+ * flushed just before commit, until the commit is published. So the outbox insert and the commit of writing
+ * transactions run one at a time. The lock is released in {@code afterCommit}, which runs before any
+ * after-commit event listener, so in-memory index and projection maintenance does not hold up other writers.
+ * <p>
+ * The last {@code app.changes.ring-size} changes are kept in memory; older ones are read from the outbox,
+ * which keeps {@code app.changes.outbox-retention} of history.
+ */
+@Component
+public class ChangeFeed implements SmartInitializingSingleton {
+
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ChangeRecordRepository changeRecordRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Duration outboxRetention;
+    private final ScheduledExecutorService scheduler;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    // held from the first recorded change of a transaction until its changes are published
+    private final ReentrantLock commitOrder = new ReentrantLock();
+    private long lastSeq;
+
+    // guarded by ring; every published change after ringFloor is in the ring
+    private final ChangeEvent[] ring;
+    private int ringStart;
+    private int ringCount;
+    private long ringFloor;
+
+    private volatile long publishedSeq;
+    private volatile long outboxFloor;
+
+    public ChangeFeed(ChangeRecordRepository changeRecordRepository,
+                      EntityManager entityManager,
+                      ObjectMapper objectMapper,
+                      @Value("${app.changes.ring-size:10000}") int ringSize,
+                      @Value("${app.changes.outbox-retention:24h}") Duration outboxRetention) {
+        this.changeRecordRepository = changeRecordRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.ring = new ChangeEvent[ringSize];
+        this.outboxRetention = outboxRetention;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-outbox-prune-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        commitOrder.lock();
+        try {
+            lastSeq = changeRecordRepository.findMaxSeq();
+            synchronized (ring) {
+                ringFloor = lastSeq;
+            }
+            outboxFloor = lastSeq;
+            publishedSeq = lastSeq;
+        } finally {
+            commitOrder.unlock();
+        }
+        scheduler.scheduleWithFixedDelay(this::pruneQuietly, PRUNE_INTERVAL.toMillis(), PRUNE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        record("employee", event.getEmployeeId(), event.getType(), event.getEmployee());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        record("department", event.getDepartmentId(), event.getType(), event.getDepartment());
+    }
+
+    /**
+     * Runs after each batch of changes is published; listeners must not block.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sequence number of the last published change; {@code since} values above it are not from this feed.
+     */
+    public long getLastSeq() {
+        return publishedSeq;
+    }
+
+    /**
+     * Up to {@code limit} changes with a sequence number above {@code since}, in order, from memory when
+     * they are still there and from the outbox otherwise.
+     *
+     * @throws ChangesExpiredException when changes after {@code since} are no longer retained, or
+     *                                 {@code since} was never issued by this feed
+     */
+    public List<ChangeEvent> since(long since, int limit) {
+        long published = publishedSeq;
+        checkIssued(since, published);
+        synchronized (ring) {
+            if (since >= ringFloor) {
+                List<ChangeEvent> events = new ArrayList<>(Math.min(limit, ringCount));
+                for (int i = firstAfter(since); i < ringCount && events.size() < limit; i++) {
+                    events.add(ring[(ringStart + i) % ring.length]);
+                }
+                return events;
+            }
+        }
+
+        checkRetained(since);
+        List<ChangeEvent> events = changeRecordRepository.findBySeqGreaterThanOrderBySeq(since, PageRequest.of(0, limit)).stream()
+                .filter(record -> record.getSeq() <= published)
+                .map(ChangeFeed::toEvent)
+                .toList();
+        // rows pruned while they were read leave a gap the caller must not skip over
+        checkRetained(since);
+        return events;
+    }
+
+    /**
+     * Throws {@link ChangesExpiredException} unless the changes after {@code since} can be read.
+     */
+    public void check(long since) {
+        checkIssued(since, publishedSeq);
+        if (since < ringFloorSnapshot()) {
+            checkRetained(since);
+        }
+    }
+
+    /**
+     * Deletes outbox rows older than the retention; changes before them can no longer be read from the
+     * outbox.
+     */
+    public int prune() {
+        Long seq = changeRecordRepository.findMaxSeqCreatedBefore(Instant.now().minus(outboxRetention));
+        if (seq == null) {
+            return 0;
+        }
+        // readers check the floor after reading, so it is raised before the rows go
+        outboxFloor = Math.max(outboxFloor, seq);
+        int deleted = changeRecordRepository.deleteUpTo(seq);
+        log.debug("Pruned {} change outbox rows up to seq {}", deleted, seq);
+        return deleted;
+    }
+
+    private void checkIssued(long since, long published) {
+        if (since < 0 || since > published) {
+            throw new ChangesExpiredException("Seq " + since + " was not issued by this server (current seq " + published
+                    + "), reload the data and continue from the current seq");
+        }
+    }
+
+    private void checkRetained(long since) {
+        if (since < outboxFloor) {
+            throw new ChangesExpiredException("Changes after seq " + since + " are no longer retained, the oldest available follow seq "
+                    + outboxFloor + ", reload the data and continue from the current seq " + publishedSeq);
+        }
+    }
+
+    private void record(String entity, Long id, ChangeType type, Object row) {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            // pending updates take their row locks before the commit order lock, never while holding it
+            entityManager.flush();
+            commitOrder.lock();
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+
+        // truncated to what the outbox column stores, so ring and outbox return the same event
+        ChangeEvent event = new ChangeEvent(++lastSeq, entity, type, id, toJson(row), Instant.now().truncatedTo(ChronoUnit.MICROS));
+        entityManager.persist(new ChangeRecord(event.getSeq(), entity, id, type, event.getData(), event.getTimestamp()));
+        pending.events.add(event);
+    }
+
+    private void publish(List<ChangeEvent> events) {
+        synchronized (ring) {
+            for (ChangeEvent event : events) {
+                if (ringCount == ring.length) {
+                    ringFloor = ring[ringStart].getSeq();
+                    ringStart = (ringStart + 1) % ring.length;
+                    ringCount--;
+                }
+                ring[(ringStart + ringCount) % ring.length] = event;
+                ringCount++;
+            }
+            publishedSeq = events.get(events.size() - 1).getSeq();
+        }
+    }
+
+    // index in the ring of the first change after seq; the ring is in seq order
+    private int firstAfter(long seq) {
+        int low = 0;
+        int high = ringCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ring[(ringStart + middle) % ring.length].getSeq() <= seq) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long ringFloorSnapshot() {
+        synchronized (ring) {
+            return ringFloor;
+        }
+    }
+
+    private void pruneQuietly() {
+        try {
+            prune();
+        } catch (RuntimeException e) {
+            log.error("Change outbox pruning failed", e);
+        }
+    }
+
+    private String toJson(Object row) {
+        if (row == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change of " + row, e);
+        }
+    }
+
+    private static ChangeEvent toEvent(ChangeRecord record) {
+        return new ChangeEvent(record.getSeq(), record.getEntityType(), record.getChangeType(), record.getEntityId(), record.getPayload(),
+                record.getCreatedAt());
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final List<ChangeEvent> events = new ArrayList<>();
+        private boolean released;
+
+        // after-commit event listeners run in afterCompletion, so this releases the lock before any of them
+        @Override
+        public void afterCommit() {
+            release(true);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(ChangeFeed.this);
+            // after a rollback, or when an earlier synchronization failed in afterCommit
+            release(status == STATUS_COMMITTED);
+        }
+
+        private void release(boolean committed) {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                if (committed && !events.isEmpty()) {
+                    publish(events);
+                }
+            } finally {
+                commitOrder.unlock();
+            }
+            if (committed) {
+                listeners.forEach(Runnable::run);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.rhb.demo.feed;
+
+import com.rhb.demo.dto.ChangeEvent;
+import com.rhb.demo.exception.ChangesExpiredException;
+import com.rhb.demo.exception.TooManySubscribersException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Event subscriptions to the {@link ChangeFeed}. A subscriber is only a cursor into the feed:
+ * a shared pool of sender threads sends each subscriber at most {@code app.changes.stream.batch-size}
+ * changes per turn, reading them from the ring or, once a slow client has fallen behind it, from the outbox,
+ * so nothing is buffered per client. A client that falls behind the outbox retention gets a {@code reset}
+ * event and is disconnected; all others reconnect with {@code Last-Event-ID} and resume where they stopped.
+ * <p>
+ * A send is a blocking socket write, so a client that stops reading blocks its sender thread once its TCP
+ * window is full, until the server's socket write timeout. A turn that runs longer than
+ * {@code app.changes.stream.send-timeout} marks the subscriber as stalled. It gets no further turns, the pool
+ * gets an extra thread for as long as that write stays blocked, and the subscriber is disconnected once the
+ * write returns. Stalled clients still count against {@code max-subscribers} until then, which bounds the
+ * number of threads they hold.
+ */
+@Component
+public class ChangeSubscriptions {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ChangeFeed changeFeed;
+    private final int maxSubscribers;
+    private final int batchSize;
+    private final Duration timeout;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Runnable publishedListener = this::onPublished;
+
+    public ChangeSubscriptions(ChangeFeed changeFeed,
+                               @Value("${app.changes.stream.max-subscribers:100}") int maxSubscribers,
+                               @Value("${app.changes.stream.threads:4}") int threads,
+                               @Value("${app.changes.stream.batch-size:500}") int batchSize,
+                               @Value("${app.changes.stream.timeout:30m}") Duration timeout,
+                               @Value("${app.changes.stream.heartbeat:15s}") Duration heartbeat,
+                               @Value("${app.changes.stream.send-timeout:10s}") Duration sendTimeout) {
+        this.changeFeed = changeFeed;
+        this.maxSubscribers = maxSubscribers;
+        this.batchSize = batchSize;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        CustomizableThreadFactory senderThreads = new CustomizableThreadFactory("change-stream-");
+        senderThreads.setDaemon(true);
+        this.senders = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), senderThreads);
+        CustomizableThreadFactory heartbeatThread = new CustomizableThreadFactory("change-stream-heartbeat-");
+        heartbeatThread.setDaemon(true);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(heartbeatThread);
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long watchdogMillis = Math.max(sendTimeout.toMillis() / 2, 1);
+        heartbeats.scheduleWithFixedDelay(this::findStalled, watchdogMillis, watchdogMillis, TimeUnit.MILLISECONDS);
+        changeFeed.addListener(publishedListener);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        changeFeed.removeListener(publishedListener);
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Opens a stream of the changes after {@code since}.
+     *
+     * @throws ChangesExpiredException     when those changes can no longer be read
+     * @throws TooManySubscribersException when {@code app.changes.stream.max-subscribers} streams are open
+     */
+    public SseEmitter subscribe(long since) {
+        changeFeed.check(since);
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManySubscribersException("Too many change stream subscribers (" + maxSubscribers + "), poll /api/changes instead");
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), since);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("Change stream opened after seq {}, {} subscribers", since, subscribers.size());
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    public Map<String, Object> stats() {
+        long lastSeq = changeFeed.getLastSeq();
+        return Map.of(
+                "subscribers", subscribers.size(),
+                "stalled", subscribers.stream().filter(subscriber -> subscriber.stalled).count(),
+                "senderThreads", senders.getCorePoolSize(),
+                "lastSeq", lastSeq,
+                "maxLag", subscribers.stream().mapToLong(subscriber -> lastSeq - subscriber.cursor).max().orElse(0));
+    }
+
+    private void onPublished() {
+        subscribers.forEach(this::schedule);
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        });
+    }
+
+    // a stalled subscriber is left alone until its blocked write returns
+    private void findStalled() {
+        long now = System.nanoTime();
+        subscribers.forEach(subscriber -> {
+            synchronized (subscriber) {
+                if (subscriber.turnStartedAt == 0 || subscriber.stalled || now - subscriber.turnStartedAt <= sendTimeoutNanos) {
+                    return;
+                }
+                subscriber.stalled = true;
+            }
+            log.warn("Change stream subscriber stopped reading at seq {}, disconnecting it", subscriber.cursor);
+            resizeSenders(1);
+        });
+    }
+
+    // the maximum is raised before and lowered after the core size, which may never exceed it
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.stalled) {
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> send(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    // one turn for one subscriber; the scheduled flag makes sure a subscriber is sent from one thread at a time
+    private void send(Subscriber subscriber) {
+        boolean open = true;
+        boolean stalled;
+        synchronized (subscriber) {
+            subscriber.turnStartedAt = System.nanoTime();
+        }
+        try {
+            List<ChangeEvent> events = changeFeed.since(subscriber.cursor, batchSize);
+            for (ChangeEvent event : events) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.getSeq()))
+                        .name(event.getEntity())
+                        .data(event, MediaType.APPLICATION_JSON));
+                subscriber.cursor = event.getSeq();
+            }
+            if (events.isEmpty() && subscriber.heartbeatDue) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            subscriber.heartbeatDue = false;
+        } catch (ChangesExpiredException e) {
+            log.warn("Change stream subscriber fell behind the retained changes at seq {}, resetting it", subscriber.cursor);
+            open = false;
+            try {
+                subscriber.emitter.send(SseEmitter.event().name("reset").data(e.getMessage()));
+            } catch (IOException | RuntimeException ignored) {
+                // the client is going away either way
+            }
+            subscriber.emitter.complete();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Change stream subscriber disconnected: {}", e.getMessage());
+            open = false;
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            synchronized (subscriber) {
+                subscriber.turnStartedAt = 0;
+                stalled = subscriber.stalled;
+            }
+            subscriber.scheduled.set(false);
+        }
+
+        if (stalled) {
+            resizeSenders(-1);
+            if (open) {
+                // the write went through in the end; the client resumes with Last-Event-ID if it is still there
+                open = false;
+                subscriber.emitter.complete();
+            }
+        }
+        if (!open) {
+            subscribers.remove(subscriber);
+        } else if (changeFeed.getLastSeq() > subscriber.cursor) {
+            // more is waiting; queue behind the other subscribers instead of sending it all now
+            schedule(subscriber);
+        }
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean heartbeatDue;
+        private volatile long turnStartedAt;
+        private volatile boolean stalled;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            // the response headers go out with the first write, so an idle stream starts with a heartbeat
+            this.heartbeatDue = true;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.rhb.demo.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rhb.demo.exception.ExternalCallRejectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-host admission control for outbound calls. Each host has an adaptive {@link GradientLimit} on calls in
+ * flight and a circuit breaker; calls over the limit or to an open circuit are rejected immediately with
+ * {@link ExternalCallRejectedException} instead of waiting for a connection. After {@code failure-threshold}
+ * consecutive failures the circuit opens for {@code open-duration}, then a single trial call decides whether
+ * it closes again. Hosts come from request input, so their states are kept for at most {@code max-hosts}
+ * hosts and dropped after {@code idle-timeout} without a call; the timeout must exceed the longest call.
+ */
+@Component
+@Lazy
+public class ExternalCallLimiter {
+
+    private static final Permit UNLIMITED = new Permit() {
+        @Override
+        public void onSuccess(long rttNanos) {
+        }
+
+        @Override
+        public void onFailure() {
+        }
+    };
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Cache<String, HostState> hosts;
+
+    public ExternalCallLimiter(@Value("${app.external.limiter.enabled:true}") boolean enabled,
+                               @Value("${app.external.limiter.initial-limit:10}") int initialLimit,
+                               @Value("${app.external.limiter.min-limit:1}") int minLimit,
+                               @Value("${app.external.limiter.max-limit:20}") int maxLimit,
+                               @Value("${app.external.limiter.rtt-tolerance:1.5}") double tolerance,
+                               @Value("${app.external.limiter.smoothing:0.2}") double smoothing,
+                               @Value("${app.external.breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${app.external.breaker.open-duration:30s}") Duration openDuration,
+                               @Value("${app.external.limiter.max-hosts:10000}") long maxHosts,
+                               @Value("${app.external.limiter.idle-timeout:10m}") Duration idleTimeout) {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.hosts = Caffeine.newBuilder()
+                .maximumSize(maxHosts)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Admits a call to the URL's host or throws {@link ExternalCallRejectedException}. The returned permit
+     * must be completed exactly once with the call's outcome.
+     */
+    public Permit acquire(String url) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        String host = hostOf(url);
+        return hosts.get(host, HostState::new).acquire();
+    }
+
+    public Map<String, Object> getState() {
+        List<Map<String, Object>> states = new ArrayList<>();
+        hosts.asMap().values().forEach(state -> states.add(state.describe()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("hosts", states);
+        return result;
+    }
+
+    // http://h/ and http://h:80/ are the same server, so the default port is filled in
+    private static String hostOf(String url) {
+        URI uri = URI.create(url);
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("URL has no host: " + url);
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        return uri.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    public interface Permit {
+
+        void onSuccess(long rttNanos);
+
+        void onFailure();
+    }
+
+    enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final class HostState {
+
+        private final String host;
+        private final GradientLimit limit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+        private int inFlight;
+        private long rejected;
+        private int consecutiveFailures;
+        private CircuitState circuit = CircuitState.CLOSED;
+        private long openUntilNanos;
+        private boolean trialInFlight;
+
+        HostState(String host) {
+            this.host = host;
+        }
+
+        synchronized Permit acquire() {
+            if (circuit == CircuitState.OPEN) {
+                if (System.nanoTime() - openUntilNanos < 0) {
+                    rejected++;
+                    throw new ExternalCallRejectedException("Circuit open for host " + host);
+                }
+                circuit = CircuitState.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (circuit == CircuitState.HALF_OPEN && trialInFlight) {
+                rejected++;
+                throw new ExternalCallRejectedException("Circuit half-open for host " + host + ", trial call in progress");
+            }
+            if (inFlight >= limit.getLimit()) {
+                rejected++;
+                throw new ExternalCallRejectedException("Concurrency limit " + limit.getLimit() + " reached for host " + host);
+            }
+
+            inFlight++;
+            trialInFlight = circuit == CircuitState.HALF_OPEN;
+            AtomicBoolean completed = new AtomicBoolean();
+            return new Permit() {
+                @Override
+                public void onSuccess(long rttNanos) {
+                    if (completed.compareAndSet(false, true)) {
+                        succeeded(rttNanos);
+                    }
+                }
+
+                @Override
+                public void onFailure() {
+                    if (completed.compareAndSet(false, true)) {
+                        failed();
+                    }
+                }
+            };
+        }
+
+        private synchronized void succeeded(long rttNanos) {
+            limit.onSample(rttNanos, inFlight);
+            inFlight--;
+            consecutiveFailures = 0;
+            if (circuit == CircuitState.HALF_OPEN) {
+                circuit = CircuitState.CLOSED;
+                trialInFlight = false;
+            }
+        }
+
+        private synchronized void failed() {
+            limit.onDrop();
+            inFlight--;
+            consecutiveFailures++;
+            if (circuit == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                circuit = CircuitState.OPEN;
+                openUntilNanos = System.nanoTime() + openNanos;
+                trialInFlight = false;
+            }
+        }
+
+        synchronized Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("host", host);
+            result.put("limit", limit.getLimit());
+            result.put("inFlight", inFlight);
+            result.put("rejected", rejected);
+            result.put("shortRttMs", limit.getShortRttNanos() / 1_000_000.0);
+            result.put("longRttMs", limit.getLongRttNanos() / 1_000_000.0);
+            result.put("circuit", circuit);
+            result.put("consecutiveFailures", consecutiveFailures);
+            if (circuit == CircuitState.OPEN) {
+                result.put("openForMs", Math.max(0, (openUntilNanos - System.nanoTime()) / 1_000_000));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.rhb.demo.limiter;
+
+/**
+ * Gradient concurrency limit: compares a short-term average round-trip time with a long-term one. While the
+ * short-term RTT stays within {@code tolerance} of the long-term one the limit grows by about sqrt(limit) per
+ * sample; once latency rises (requests are queueing at the remote side) the limit shrinks proportionally.
+ * Only grows while the limit is actually being used, so an idle host does not drift to the maximum.
+ * Not thread-safe, {@link ExternalCallLimiter} guards each instance with its host's lock.
+ */
+class GradientLimit {
+
+    private static final double SHORT_RTT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_RTT_ALPHA = 2.0 / (500 + 1);
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    double getShortRttNanos() {
+        return shortRttNanos;
+    }
+
+    double getLongRttNanos() {
+        return longRttNanos;
+    }
+
+    void onSample(long rttNanos, int inFlight) {
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+
+        shortRttNanos += (rttNanos - shortRttNanos) * SHORT_RTT_ALPHA;
+        longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_ALPHA;
+        // after a long slow period let the baseline recover quickly instead of treating it as normal
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        setLimit(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    void onDrop() {
+        setLimit(limit * DROP_BACKOFF);
+    }
+
+    private void setLimit(double value) {
+        limit = Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,133 @@
+package com.rhb.demo.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Component
+public class LatencyMetrics {
+
+    private final ConcurrentHashMap<Method, MethodMetrics> metrics = new ConcurrentHashMap<>();
+    private volatile long windowStartNanos = System.nanoTime();
+
+    public void record(Method method, String layer, long nanos, boolean failed) {
+        MethodMetrics methodMetrics = metrics.get(method);
+        if (methodMetrics == null) {
+            methodMetrics = metrics.computeIfAbsent(method, m -> new MethodMetrics(layer, nameOf(m)));
+        }
+        methodMetrics.record(nanos, failed);
+    }
+
+    public Map<String, Object> snapshot() {
+        return snapshot(false);
+    }
+
+    public Map<String, Object> reset() {
+        return snapshot(true);
+    }
+
+    private synchronized Map<String, Object> snapshot(boolean reset) {
+        long now = System.nanoTime();
+        long startNanos = windowStartNanos;
+        if (reset) {
+            windowStartNanos = now;
+        }
+        List<MethodMetrics> all = new ArrayList<>(metrics.values());
+        all.sort(Comparator.comparing((MethodMetrics m) -> m.layer).thenComparing(m -> m.name));
+
+        List<Window> windows = new ArrayList<>(all.size());
+        for (MethodMetrics methodMetrics : all) {
+            windows.add(reset ? methodMetrics.window.getAndSet(new Window()) : methodMetrics.window.get());
+        }
+
+        Map<String, Window> totals = new LinkedHashMap<>();
+        List<Map<String, Object>> methods = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            MethodMetrics methodMetrics = all.get(i);
+            Window window = windows.get(i);
+            totals.computeIfAbsent(methodMetrics.layer, layer -> new Window()).merge(window);
+            methods.add(describe(methodMetrics.layer, methodMetrics.name, window, now - startNanos));
+        }
+
+        List<Map<String, Object>> layers = new ArrayList<>();
+        totals.forEach((layer, window) -> layers.add(describe(layer, "all", window, now - startNanos)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("layers", layers);
+        result.put("methods", methods);
+        return result;
+    }
+
+    // overloads get one entry each, e.g. EmployeeService.updateEmployee(Long,Employee)
+    static String nameOf(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                + Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName).collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private static Map<String, Object> describe(String layer, String name, Window window, long windowNanos) {
+        LatencyHistogram histogram = window.histogram;
+        double seconds = Math.max(windowNanos, 1) / 1_000_000_000.0;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("layer", layer);
+        result.put("name", name);
+        result.put("count", histogram.getCount());
+        result.put("errors", window.errors.sum());
+        result.put("throughputPerSecond", round(histogram.getCount() / seconds));
+        result.put("windowSeconds", round(seconds));
+        result.put("meanMs", millis(histogram.getMean()));
+        result.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        result.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+        result.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        result.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        result.put("maxMs", millis(histogram.getMax()));
+        return result;
+    }
+
+    private static double millis(double nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static final class MethodMetrics {
+        private final String layer;
+        private final String name;
+        private final AtomicReference<Window> window = new AtomicReference<>(new Window());
+
+        MethodMetrics(String layer, String name) {
+            this.layer = layer;
+            this.name = name;
+        }
+
+        void record(long nanos, boolean failed) {
+            Window current = window.get();
+            current.histogram.record(nanos);
+            if (failed) {
+                current.errors.increment();
+            }
+        }
+    }
+
+    private static final class Window {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void merge(Window other) {
+            histogram.merge(other.histogram);
+            errors.add(other.errors.sum());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.rhb.demo.projection;
+
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.event.ChangeType;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the Employee/Department join, grouped by department location. Built at startup and kept
+ * current by employee and department change events, so {@code /withDepartment} and {@code /byLocation} are
+ * answered without a query. Lists are returned in employee id order and cached until the next change to
+ * their location.
+ */
+@Component
+public class EmployeeLocationProjection {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final EmployeeRepository employeeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final Map<Long, Department> departments = new HashMap<>();
+    private final NavigableMap<Long, EmployeeDepartmentDTO> employees = new TreeMap<>();
+    private final Map<Long, Set<Long>> employeesByDepartment = new HashMap<>();
+    private final Map<String, NavigableMap<Long, EmployeeDepartmentDTO>> employeesByLocation = new HashMap<>();
+    private final Set<Long> deletedWhileBuilding = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, List<EmployeeDepartmentDTO>> locationViews = new ConcurrentHashMap<>();
+    private volatile List<EmployeeDepartmentDTO> allView;
+    private volatile long version;
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public EmployeeLocationProjection(EmployeeRepository employeeRepository,
+                                      DepartmentRepository departmentRepository,
+                                      @Value("${app.projection.location.enabled:true}") boolean enabled,
+                                      @Value("${app.projection.location.batch-size:10000}") int batchSize) {
+        this.employeeRepository = employeeRepository;
+        this.departmentRepository = departmentRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            log.info("Employee location projection is disabled, location queries go to the database");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        building = true;
+        List<Department> loadedDepartments = departmentRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            loadedDepartments.forEach(department -> departments.putIfAbsent(department.getId(), copy(department)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long lastId = 0;
+        List<EmployeeDepartmentDTO> rows;
+        do {
+            rows = employeeRepository.findWithDepartmentAfter(lastId, PageRequest.of(0, batchSize));
+            lock.writeLock().lock();
+            try {
+                for (EmployeeDepartmentDTO row : rows) {
+                    if (!employees.containsKey(row.getEmployeeId()) && !deletedWhileBuilding.contains(row.getEmployeeId())) {
+                        put(row);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!rows.isEmpty()) {
+                lastId = rows.get(rows.size() - 1).getEmployeeId();
+            }
+        } while (rows.size() == batchSize);
+
+        lock.writeLock().lock();
+        try {
+            deletedWhileBuilding.clear();
+            building = false;
+            ready = true;
+            locationViews.clear();
+            allView = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Employee location projection built with {} employees in {} locations in {} ms", size(), employeesByLocation.size(),
+                (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            remove(event.getEmployeeId());
+            if (event.getType() == ChangeType.DELETED) {
+                if (building) {
+                    deletedWhileBuilding.add(event.getEmployeeId());
+                }
+            } else if (event.getEmployee().getDepartmentId() != null) {
+                put(event.getEmployee());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Set<Long> members = employeesByDepartment.getOrDefault(event.getDepartmentId(), Set.of());
+            List<EmployeeDepartmentDTO> affected = members.stream().map(employees::get).toList();
+            affected.forEach(employee -> remove(employee.getEmployeeId()));
+            if (event.getType() == ChangeType.DELETED) {
+                departments.remove(event.getDepartmentId());
+            } else {
+                departments.put(event.getDepartmentId(), copy(event.getDepartment()));
+                affected.forEach(this::put);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Incremented on every change; read it before the lists it describes.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return employees.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Employees whose department is at the location, or {@code null} when the projection is not built yet.
+     */
+    public List<EmployeeDepartmentDTO> findByLocation(String location) {
+        if (!ready) {
+            return null;
+        }
+        List<EmployeeDepartmentDTO> view = locationViews.get(location);
+        if (view != null) {
+            return view;
+        }
+
+        // views are stored under the read lock so a concurrent change cannot be overwritten by a stale copy
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, EmployeeDepartmentDTO> atLocation = employeesByLocation.get(location);
+            if (atLocation == null) {
+                return List.of();
+            }
+            view = List.copyOf(atLocation.values());
+            locationViews.put(location, view);
+            return view;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All employees that have a department, or {@code null} when the projection is not built yet.
+     */
+    public List<EmployeeDepartmentDTO> findAll() {
+        if (!ready) {
+            return null;
+        }
+        List<EmployeeDepartmentDTO> view = allView;
+        if (view != null) {
+            return view;
+        }
+
+        lock.readLock().lock();
+        try {
+            view = List.copyOf(employees.values());
+            allView = view;
+            return view;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(EmployeeDepartmentDTO row) {
+        Department department = departments.get(row.getDepartmentId());
+        if (department == null) {
+            department = new Department(row.getDepartmentId(), row.getDepartmentName(), row.getDepartmentLocation());
+            departments.put(department.getId(), department);
+        }
+        EmployeeDepartmentDTO employee = new EmployeeDepartmentDTO(row.getEmployeeId(), row.getFirstName(), row.getLastName(), row.getEmail(),
+                department.getId(), department.getName(), department.getLocation());
+
+        employees.put(employee.getEmployeeId(), employee);
+        version++;
+        allView = null;
+        employeesByDepartment.computeIfAbsent(employee.getDepartmentId(), key -> new HashSet<>()).add(employee.getEmployeeId());
+        if (employee.getDepartmentLocation() != null) {
+            employeesByLocation.computeIfAbsent(employee.getDepartmentLocation(), key -> new TreeMap<>()).put(employee.getEmployeeId(), employee);
+            locationViews.remove(employee.getDepartmentLocation());
+        }
+    }
+
+    private void remove(Long employeeId) {
+        EmployeeDepartmentDTO employee = employees.remove(employeeId);
+        if (employee == null) {
+            return;
+        }
+        version++;
+        allView = null;
+        Set<Long> members = employeesByDepartment.get(employee.getDepartmentId());
+        if (members != null && members.remove(employeeId) && members.isEmpty()) {
+            employeesByDepartment.remove(employee.getDepartmentId());
+        }
+        NavigableMap<Long, EmployeeDepartmentDTO> atLocation = employeesByLocation.get(employee.getDepartmentLocation());
+        if (atLocation != null && atLocation.remove(employeeId) != null) {
+            locationViews.remove(employee.getDepartmentLocation());
+            if (atLocation.isEmpty()) {
+                employeesByLocation.remove(employee.getDepartmentLocation());
+            }
+        }
+    }
+
+    private static Department copy(Department department) {
+        return new Department(department.getId(), department.getName(), department.getLocation());
+    }
+}
@@ -0,0 +1,289 @@
+package com.rhb.demo.projection;
+
+import com.rhb.demo.dto.DepartmentHeadcount;
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.dto.LocationHeadcount;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.event.ChangeType;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Employee headcount per department and per location, adjusted by every committed employee and department
+ * change so dashboards read counters instead of joining the tables. The counters are reconciled against the
+ * database every {@code app.headcount.reconcile-interval}: the department of every employee is reloaded while
+ * the changes committed meanwhile are kept aside, then those changes are applied again on top of the loaded
+ * counters before they replace the current ones. Changes carry the resulting state rather than a delta, so
+ * applying one the load already saw leaves the counters as they are.
+ */
+@Component
+public class HeadcountAggregates {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final EmployeeRepository employeeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final boolean enabled;
+    private final Duration reconcileInterval;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object reconciliation = new Object();
+
+    // guarded by this
+    private Map<Long, Long> departmentOfEmployee = new HashMap<>();
+    private Map<Long, Department> departments = new HashMap<>();
+    private Map<Long, Long> byDepartment = new HashMap<>();
+    private Map<String, Long> byLocation = new HashMap<>();
+    // changes applied while a reconciliation is loading, null otherwise
+    private List<Runnable> changesWhileLoading;
+
+    private volatile List<DepartmentHeadcount> departmentView;
+    private volatile List<LocationHeadcount> locationView;
+    private volatile boolean ready;
+
+    public HeadcountAggregates(EmployeeRepository employeeRepository,
+                               DepartmentRepository departmentRepository,
+                               @Value("${app.headcount.enabled:true}") boolean enabled,
+                               @Value("${app.headcount.reconcile-interval:5m}") Duration reconcileInterval,
+                               @Value("${app.headcount.batch-size:10000}") int batchSize) {
+        this.employeeRepository = employeeRepository;
+        this.departmentRepository = departmentRepository;
+        this.enabled = enabled;
+        this.reconcileInterval = reconcileInterval;
+        this.batchSize = batchSize;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("headcount-reconcile-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Headcount aggregates are disabled, headcounts are counted by the database");
+            return;
+        }
+        reconcile();
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Reloads the counters from the database and applies the changes that arrived while loading on top.
+     */
+    public void reconcile() {
+        synchronized (reconciliation) {
+            synchronized (this) {
+                changesWhileLoading = new ArrayList<>();
+            }
+            try {
+                load();
+            } finally {
+                synchronized (this) {
+                    changesWhileLoading = null;
+                }
+            }
+        }
+    }
+
+    private void load() {
+        long startTime = System.nanoTime();
+        Map<Long, Department> loadedDepartments = new HashMap<>();
+        departmentRepository.findAll().forEach(department -> loadedDepartments.put(department.getId(), copy(department)));
+        Map<Long, Long> loadedEmployees = new HashMap<>();
+        long lastId = 0;
+        List<EmployeeDepartmentDTO> rows;
+        do {
+            rows = employeeRepository.findWithDepartmentAfter(lastId, PageRequest.of(0, batchSize));
+            for (EmployeeDepartmentDTO row : rows) {
+                loadedEmployees.put(row.getEmployeeId(), row.getDepartmentId());
+                loadedDepartments.computeIfAbsent(row.getDepartmentId(),
+                        id -> new Department(id, row.getDepartmentName(), row.getDepartmentLocation()));
+                lastId = row.getEmployeeId();
+            }
+        } while (rows.size() == batchSize);
+
+        int replayed;
+        synchronized (this) {
+            Map<Long, Long> previous = byDepartment;
+            departmentOfEmployee = loadedEmployees;
+            departments = loadedDepartments;
+            byDepartment = new HashMap<>();
+            byLocation = new HashMap<>();
+            loadedEmployees.values().forEach(departmentId -> adjust(departmentId, 1));
+            replayed = changesWhileLoading.size();
+            changesWhileLoading.forEach(Runnable::run);
+            if (ready && !previous.equals(byDepartment)) {
+                log.warn("Headcount counters drifted from the database and were corrected: {} -> {}", previous, byDepartment);
+            }
+            invalidateViews();
+            ready = true;
+        }
+        log.info("Headcount aggregates reconciled with {} employees in {} departments and {} changes made while loading in {} ms",
+                loadedEmployees.size(), loadedDepartments.size(), replayed, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        apply(() -> applyEmployeeChange(event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDepartmentChanged(DepartmentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        apply(() -> applyDepartmentChange(event));
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (changesWhileLoading != null) {
+            changesWhileLoading.add(change);
+        }
+        invalidateViews();
+    }
+
+    private void applyEmployeeChange(EmployeeChangedEvent event) {
+        Long newDepartmentId = event.getType() == ChangeType.DELETED ? null : event.getEmployee().getDepartmentId();
+        Long oldDepartmentId = newDepartmentId == null
+                ? departmentOfEmployee.remove(event.getEmployeeId())
+                : departmentOfEmployee.put(event.getEmployeeId(), newDepartmentId);
+        if (Objects.equals(oldDepartmentId, newDepartmentId)) {
+            return;
+        }
+        if (newDepartmentId != null && !departments.containsKey(newDepartmentId)) {
+            EmployeeDepartmentDTO employee = event.getEmployee();
+            departments.put(newDepartmentId, new Department(newDepartmentId, employee.getDepartmentName(), employee.getDepartmentLocation()));
+        }
+        adjust(oldDepartmentId, -1);
+        adjust(newDepartmentId, 1);
+    }
+
+    private void applyDepartmentChange(DepartmentChangedEvent event) {
+        long headcount = byDepartment.getOrDefault(event.getDepartmentId(), 0L);
+        Department previous = departments.get(event.getDepartmentId());
+        if (previous != null) {
+            adjustLocation(previous.getLocation(), -headcount);
+        }
+        if (event.getType() == ChangeType.DELETED) {
+            departments.remove(event.getDepartmentId());
+            byDepartment.remove(event.getDepartmentId());
+        } else {
+            departments.put(event.getDepartmentId(), copy(event.getDepartment()));
+            adjustLocation(event.getDepartment().getLocation(), headcount);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Headcount of every department in id order, or {@code null} when the counters are not loaded yet.
+     */
+    public List<DepartmentHeadcount> byDepartment() {
+        if (!ready) {
+            return null;
+        }
+        List<DepartmentHeadcount> view = departmentView;
+        if (view != null) {
+            return view;
+        }
+
+        synchronized (this) {
+            view = new TreeMap<>(departments).values().stream()
+                    .map(department -> new DepartmentHeadcount(department.getId(), department.getName(), department.getLocation(),
+                            byDepartment.getOrDefault(department.getId(), 0L)))
+                    .toList();
+            departmentView = view;
+            return view;
+        }
+    }
+
+    /**
+     * Headcount of every location that has a department, in location order, or {@code null} when the
+     * counters are not loaded yet.
+     */
+    public List<LocationHeadcount> byLocation() {
+        if (!ready) {
+            return null;
+        }
+        List<LocationHeadcount> view = locationView;
+        if (view != null) {
+            return view;
+        }
+
+        synchronized (this) {
+            Map<String, Long> counts = new TreeMap<>();
+            departments.values().stream()
+                    .filter(department -> department.getLocation() != null)
+                    .forEach(department -> counts.put(department.getLocation(), byLocation.getOrDefault(department.getLocation(), 0L)));
+            view = counts.entrySet().stream().map(entry -> new LocationHeadcount(entry.getKey(), entry.getValue())).toList();
+            locationView = view;
+            return view;
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Headcount reconciliation failed", e);
+        }
+    }
+
+    private void adjust(Long departmentId, long delta) {
+        if (departmentId == null) {
+            return;
+        }
+        byDepartment.merge(departmentId, delta, Long::sum);
+        Department department = departments.get(departmentId);
+        if (department != null) {
+            adjustLocation(department.getLocation(), delta);
+        }
+    }
+
+    private void adjustLocation(String location, long delta) {
+        if (location != null && delta != 0) {
+            byLocation.merge(location, delta, Long::sum);
+        }
+    }
+
+    private void invalidateViews() {
+        departmentView = null;
+        locationView = null;
+    }
+
+    private static Department copy(Department department) {
+        return new Department(department.getId(), department.getName(), department.getLocation());
+    }
+}
@@ -0,0 +1,30 @@
+package com.rhb.demo.repository;
+
+import com.rhb.demo.entity.ChangeRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, Long> {
+
+    List<ChangeRecord> findBySeqGreaterThanOrderBySeq(long seq, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM ChangeRecord c")
+    long findMaxSeq();
+
+    @Query("SELECT MAX(c.seq) FROM ChangeRecord c WHERE c.createdAt < :before")
+    Long findMaxSeqCreatedBefore(@Param("before") Instant before);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChangeRecord c WHERE c.seq <= :seq")
+    int deleteUpTo(@Param("seq") long seq);
+}
@@ -1,10 +1,36 @@
 package com.rhb.demo.repository;
 
+import com.rhb.demo.dto.DepartmentHeadcount;
+import com.rhb.demo.dto.LocationHeadcount;
 import com.rhb.demo.entity.Department;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 @Repository
-public interface DepartmentRepository extends JpaRepository<Department, Long> {
-}
+public interface DepartmentRepository extends JpaRepository<Department, Long>, DepartmentRepositoryCustom {
+
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Department> findAll();
 
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.rhb.demo.entity.Department(d.id, d.name, d.location) FROM Department d ORDER BY d.id")
+    Stream<Department> streamAll();
+
+    @Query("SELECT new com.rhb.demo.dto.DepartmentHeadcount(d.id, d.name, d.location, COUNT(e)) "
+            + "FROM Department d LEFT JOIN Employee e ON e.department = d GROUP BY d.id, d.name, d.location ORDER BY d.id")
+    List<DepartmentHeadcount> countHeadcountByDepartment();
+
+    @Query("SELECT new com.rhb.demo.dto.LocationHeadcount(d.location, COUNT(e)) "
+            + "FROM Department d LEFT JOIN Employee e ON e.department = d WHERE d.location IS NOT NULL GROUP BY d.location ORDER BY d.location")
+    List<LocationHeadcount> countHeadcountByLocation();
+}
@@ -0,0 +1,22 @@
+package com.rhb.demo.repository;
+
+import com.rhb.demo.dto.DepartmentPatch;
+import com.rhb.demo.entity.Department;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DepartmentRepositoryCustom {
+
+    /**
+     * Applies the non-null fields of the patch with a single UPDATE and returns the updated row, or empty when
+     * no department has that id or, unless {@code versions} is {@code null}, its version is not one of them.
+     */
+    Optional<Department> patchDepartment(Long id, DepartmentPatch patch, Collection<Long> versions);
+
+    /**
+     * Moves every department at one location to another in one statement and returns the updated rows.
+     */
+    List<Department> relocateDepartments(String fromLocation, String toLocation);
+}
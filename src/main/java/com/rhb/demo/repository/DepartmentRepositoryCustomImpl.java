@@ -0,0 +1,58 @@
+package com.rhb.demo.repository;
+
+import com.rhb.demo.dto.DepartmentPatch;
+import com.rhb.demo.entity.Department;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class DepartmentRepositoryCustomImpl implements DepartmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Department> patchDepartment(Long id, DepartmentPatch patch, Collection<Long> versions) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (patch.getName() != null) {
+            columns.put("name", patch.getName());
+        }
+        if (patch.getLocation() != null) {
+            columns.put("location", patch.getLocation());
+        }
+
+        Query query = entityManager.createNativeQuery("SELECT id, name, location, version "
+                + "FROM FINAL TABLE (UPDATE department SET " + EmployeeRepositoryCustomImpl.assignments(columns)
+                + EmployeeRepositoryCustomImpl.where(versions) + ")");
+        columns.forEach(query::setParameter);
+        query.setParameter("id", id);
+        if (versions != null) {
+            query.setParameter("versions", versions);
+        }
+
+        List<?> rows = query.getResultList();
+        EmployeeRepositoryCustomImpl.invalidate(entityManager, Department.class);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(toDepartment((Object[]) rows.get(0)));
+    }
+
+    @Override
+    public List<Department> relocateDepartments(String fromLocation, String toLocation) {
+        List<?> rows = entityManager.createNativeQuery("SELECT id, name, location, version "
+                        + "FROM FINAL TABLE (UPDATE department SET location = :to, version = version + 1 WHERE location = :from)")
+                .setParameter("from", fromLocation)
+                .setParameter("to", toLocation)
+                .getResultList();
+        EmployeeRepositoryCustomImpl.invalidate(entityManager, Department.class);
+        return rows.stream().map(row -> toDepartment((Object[]) row)).toList();
+    }
+
+    private static Department toDepartment(Object[] row) {
+        return new Department(((Number) row[0]).longValue(), (String) row[1], (String) row[2], ((Number) row[3]).longValue());
+    }
+}
@@ -2,25 +2,83 @@ package com.rhb.demo.repository;
 
 import com.rhb.demo.dto.EmployeeDepartmentDTO;
 import com.rhb.demo.entity.Employee;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
+
+    // Employee lists are serialized with their department, load it in the same statement instead of one per row
+
+    @Override
+    @EntityGraph(attributePaths = "department")
+    List<Employee> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "department")
+    Page<Employee> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "department")
+    List<Employee> findAllById(Iterable<Long> ids);
+
+    @Override
+    @EntityGraph(attributePaths = "department")
+    Optional<Employee> findById(Long id);
+
+    // search pages are loaded as slices, totals come from the counts below (see EmployeeCountCache)
+
+    @EntityGraph(attributePaths = "department")
+    Slice<Employee> findAllBy(Pageable pageable);
 
+    @EntityGraph(attributePaths = "department")
     @Query("SELECT e FROM Employee e WHERE " + "LOWER(e.firstName) LIKE :keyword OR " + "LOWER(e.lastName) LIKE :keyword OR " + "LOWER(e.email) LIKE :keyword")
-    Page<Employee> searchEmployees(@Param("keyword") String keyword, Pageable pageable);
+    Slice<Employee> searchEmployees(@Param("keyword") String keyword, Pageable pageable);
 
+    @Query("SELECT COUNT(e) FROM Employee e WHERE " + "LOWER(e.firstName) LIKE :keyword OR " + "LOWER(e.lastName) LIKE :keyword OR " + "LOWER(e.email) LIKE :keyword")
+    long countSearchEmployees(@Param("keyword") String keyword);
+
+    @Query("SELECT e.id AS id, e.firstName AS firstName, e.lastName AS lastName, e.email AS email " + "FROM Employee e " + "WHERE e.id > :afterId " + "ORDER BY e.id")
+    List<EmployeeSearchRow> findSearchRowsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.rhb.demo.dto.EmployeeDepartmentDTO(" + "e.id, e.firstName, e.lastName, e.email, d.id, d.name, d.location) " + "FROM Employee e " + "INNER JOIN e.department d " + "WHERE d.location = :location")
     List<EmployeeDepartmentDTO> findEmployeesByLocation(@Param("location") String location);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.rhb.demo.dto.EmployeeDepartmentDTO(" + "e.id, e.firstName, e.lastName, e.email, d.id, d.name, d.location) " + "FROM Employee e " + "INNER JOIN e.department d")
     List<EmployeeDepartmentDTO> findAllWithDepartment();
-}
 
+    @Query("SELECT new com.rhb.demo.dto.EmployeeDepartmentDTO(" + "e.id, e.firstName, e.lastName, e.email, d.id, d.name, d.location) " + "FROM Employee e " + "INNER JOIN e.department d " + "WHERE e.id > :afterId " + "ORDER BY e.id")
+    List<EmployeeDepartmentDTO> findWithDepartmentAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT e.version AS version, d.id AS departmentId, d.version AS departmentVersion " + "FROM Employee e " + "LEFT JOIN e.department d " + "WHERE e.id = :id")
+    Optional<EmployeeVersion> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT e.email FROM Employee e WHERE e.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.rhb.demo.dto.EmployeeDepartmentDTO(" + "e.id, e.firstName, e.lastName, e.email, d.id, d.name, d.location) " + "FROM Employee e " + "LEFT JOIN e.department d " + "ORDER BY e.id")
+    Stream<EmployeeDepartmentDTO> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.rhb.demo.dto.EmployeeDepartmentDTO(" + "e.id, e.firstName, e.lastName, e.email, d.id, d.name, d.location) " + "FROM Employee e " + "INNER JOIN e.department d " + "ORDER BY e.id")
+    Stream<EmployeeDepartmentDTO> streamAllWithDepartment();
+}
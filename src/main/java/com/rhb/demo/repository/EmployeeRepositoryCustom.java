@@ -0,0 +1,32 @@
+package com.rhb.demo.repository;
+
+import com.rhb.demo.dto.EmployeePatch;
+import com.rhb.demo.entity.Employee;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmployeeRepositoryCustom {
+
+    List<Employee> searchEmployeesAfter(String keyword, Sort.Order order, String lastValue, Long lastId, int limit);
+
+    /**
+     * Applies the non-null fields of the patch with a single UPDATE and returns the updated row, whose
+     * department only has its id set, or empty when no employee has that id or, unless {@code versions} is
+     * {@code null}, its version is not one of them.
+     */
+    Optional<Employee> patchEmployee(Long id, EmployeePatch patch, Collection<Long> versions);
+
+    /**
+     * Deletes the employees with the given ids in one statement and returns the ids that existed.
+     */
+    List<Long> deleteEmployees(Collection<Long> ids);
+
+    /**
+     * Moves every employee of one department to another in one statement and returns the updated rows, whose
+     * department only has its id set.
+     */
+    List<Employee> reassignDepartment(Long fromDepartmentId, Long toDepartmentId);
+}
@@ -0,0 +1,163 @@
+package com.rhb.demo.repository;
+
+import com.rhb.demo.dto.EmployeePatch;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Employee> searchEmployeesAfter(String keyword, Sort.Order order, String lastValue, Long lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        Root<Employee> root = query.from(Employee.class);
+        root.fetch("department", JoinType.LEFT);
+        Path<Long> id = root.get("id");
+        boolean descending = order.isDescending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (keyword != null) {
+            predicates.add(cb.or(
+                    cb.like(cb.lower(root.get("firstName")), keyword),
+                    cb.like(cb.lower(root.get("lastName")), keyword),
+                    cb.like(cb.lower(root.get("email")), keyword)));
+        }
+
+        if ("id".equals(order.getProperty())) {
+            if (lastId != null) {
+                predicates.add(beyond(cb, id, lastId, descending));
+            }
+            query.orderBy(descending ? cb.desc(id) : cb.asc(id));
+        } else {
+            Path<String> sortKey = root.get(order.getProperty());
+            if (lastId != null) {
+                predicates.add(cb.or(
+                        beyond(cb, sortKey, lastValue, descending),
+                        cb.and(cb.equal(sortKey, lastValue), beyond(cb, id, lastId, descending))));
+            }
+            query.orderBy(descending ? cb.desc(sortKey) : cb.asc(sortKey), descending ? cb.desc(id) : cb.asc(id));
+        }
+
+        query.select(root).where(predicates.toArray(Predicate[]::new));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Optional<Employee> patchEmployee(Long id, EmployeePatch patch, Collection<Long> versions) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (patch.getFirstName() != null) {
+            columns.put("first_name", patch.getFirstName());
+        }
+        if (patch.getLastName() != null) {
+            columns.put("last_name", patch.getLastName());
+        }
+        if (patch.getEmail() != null) {
+            columns.put("email", patch.getEmail());
+        }
+        if (patch.getDepartmentId() != null) {
+            columns.put("department_id", patch.getDepartmentId());
+        }
+
+        // FINAL TABLE returns the row as the UPDATE left it, so the caller gets it without a second query
+        Query query = entityManager.createNativeQuery("SELECT id, first_name, last_name, email, department_id, version "
+                + "FROM FINAL TABLE (UPDATE employee SET " + assignments(columns) + where(versions) + ")");
+        columns.forEach(query::setParameter);
+        query.setParameter("id", id);
+        if (versions != null) {
+            query.setParameter("versions", versions);
+        }
+
+        List<?> rows = query.getResultList();
+        invalidate(entityManager, Employee.class);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(toEmployee((Object[]) rows.get(0)));
+    }
+
+    @Override
+    public List<Long> deleteEmployees(Collection<Long> ids) {
+        List<?> rows = entityManager.createNativeQuery("SELECT id FROM OLD TABLE (DELETE FROM employee WHERE id = ANY(:ids))")
+                .setParameter("ids", ids.toArray(Long[]::new))
+                .getResultList();
+        invalidate(entityManager, Employee.class);
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    @Override
+    public List<Employee> reassignDepartment(Long fromDepartmentId, Long toDepartmentId) {
+        List<?> rows = entityManager.createNativeQuery("SELECT id, first_name, last_name, email, department_id, version "
+                        + "FROM FINAL TABLE (UPDATE employee SET department_id = :to, version = version + 1 WHERE department_id = :from)")
+                .setParameter("from", fromDepartmentId)
+                .setParameter("to", toDepartmentId)
+                .getResultList();
+        invalidate(entityManager, Employee.class);
+        return rows.stream().map(row -> toEmployee((Object[]) row)).toList();
+    }
+
+    private static Employee toEmployee(Object[] row) {
+        Department department = row[4] == null ? null : new Department(((Number) row[4]).longValue(), null, null);
+        return new Employee(((Number) row[0]).longValue(), (String) row[1], (String) row[2], (String) row[3],
+                department, ((Number) row[5]).longValue());
+    }
+
+    /**
+     * Hibernate only invalidates its caches for native statements run through {@code executeUpdate}, so the
+     * DML wrapped in FINAL/OLD TABLE selects evicts them itself: the entity's cache region and all cached
+     * query results now, and again after commit, since a concurrent transaction may cache the rows it still
+     * sees as committed before this one commits.
+     */
+    static void invalidate(EntityManager entityManager, Class<?> entityClass) {
+        EntityManagerFactory entityManagerFactory = entityManager.getEntityManagerFactory();
+        evict(entityManagerFactory, entityClass);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(entityManagerFactory, entityClass);
+                }
+            });
+        }
+    }
+
+    private static void evict(EntityManagerFactory entityManagerFactory, Class<?> entityClass) {
+        entityManagerFactory.getCache().evict(entityClass);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    static String assignments(Map<String, Object> columns) {
+        StringBuilder set = new StringBuilder();
+        columns.keySet().forEach(column -> set.append(column).append(" = :").append(column).append(", "));
+        return set.append("version = version + 1").toString();
+    }
+
+    static String where(Collection<Long> versions) {
+        return versions == null ? " WHERE id = :id" : " WHERE id = :id AND version IN (:versions)";
+    }
+
+    private static <T extends Comparable<? super T>> Predicate beyond(CriteriaBuilder cb, Expression<T> key, T last, boolean descending) {
+        return descending ? cb.lessThan(key, last) : cb.greaterThan(key, last);
+    }
+}
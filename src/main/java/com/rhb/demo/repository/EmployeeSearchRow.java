@@ -0,0 +1,12 @@
+package com.rhb.demo.repository;
+
+public interface EmployeeSearchRow {
+
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+}
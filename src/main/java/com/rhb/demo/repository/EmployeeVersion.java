@@ -0,0 +1,10 @@
+package com.rhb.demo.repository;
+
+public interface EmployeeVersion {
+
+    Long getVersion();
+
+    Long getDepartmentId();
+
+    Long getDepartmentVersion();
+}
@@ -0,0 +1,163 @@
+package com.rhb.demo.search;
+
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.event.ChangeType;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.EmployeeRepository;
+import com.rhb.demo.repository.EmployeeSearchRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class EmployeeSearchIndex {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final EmployeeRepository employeeRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final TrigramIndex index = new TrigramIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> deletedWhileBuilding = new HashSet<>();
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public EmployeeSearchIndex(EmployeeRepository employeeRepository,
+                               @Value("${app.search.index.enabled:true}") boolean enabled,
+                               @Value("${app.search.index.batch-size:10000}") int batchSize) {
+        this.employeeRepository = employeeRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            log.info("Employee search index is disabled, searches go to the database");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        building = true;
+        long lastId = 0;
+        List<EmployeeSearchRow> rows;
+        do {
+            rows = employeeRepository.findSearchRowsAfter(lastId, PageRequest.of(0, batchSize));
+            lock.writeLock().lock();
+            try {
+                for (EmployeeSearchRow row : rows) {
+                    if (!index.contains(row.getId()) && !deletedWhileBuilding.contains(row.getId())) {
+                        index.put(row.getId(), row.getFirstName(), row.getLastName(), row.getEmail());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!rows.isEmpty()) {
+                lastId = rows.get(rows.size() - 1).getId();
+            }
+        } while (rows.size() == batchSize);
+
+        lock.writeLock().lock();
+        try {
+            deletedWhileBuilding.clear();
+            building = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Employee search index built with {} employees in {} ms", size(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == ChangeType.DELETED) {
+                index.remove(event.getEmployeeId());
+                if (building) {
+                    deletedWhileBuilding.add(event.getEmployeeId());
+                }
+            } else {
+                EmployeeDepartmentDTO employee = event.getEmployee();
+                index.put(employee.getEmployeeId(), employee.getFirstName(), employee.getLastName(), employee.getEmail());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves the ids of one page of employees whose firstName, lastName or email contains the keyword,
+     * or returns {@code null} when the index is not built yet or cannot sort by the requested properties.
+     */
+    public SearchResult search(String keyword, Pageable pageable) {
+        if (!ready) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            Comparator<Integer> order = comparator(pageable.getSort());
+            if (order == null) {
+                return null;
+            }
+            int[] matches = index.match(keyword);
+            long[] ids = pageable.isPaged()
+                    ? index.page(matches, order, pageable.getOffset(), pageable.getPageSize())
+                    : index.page(matches, order, 0, matches.length);
+            return new SearchResult(ids, matches.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Comparator<Integer> comparator(Sort sort) {
+        Comparator<Integer> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<Integer> next = index.comparator(order.getProperty());
+            if (next == null) {
+                return null;
+            }
+            next = order.isDescending() ? next.reversed() : next;
+            result = result == null ? next : result.thenComparing(next);
+        }
+        Comparator<Integer> byId = index.comparator("id");
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    public record SearchResult(long[] ids, long total) {
+    }
+}
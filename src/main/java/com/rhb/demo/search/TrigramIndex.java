@@ -0,0 +1,229 @@
+package com.rhb.demo.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Inverted index from lower-cased character trigrams of firstName, lastName and email to document slots.
+ * Slots are appended in increasing order, so every posting list stays sorted without re-sorting; updates
+ * and deletes only tombstone the old slot, and dead slots are reclaimed by {@link #compact()}.
+ * Not thread-safe, {@link EmployeeSearchIndex} guards it with a read/write lock.
+ */
+class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private long[] ids = new long[1024];
+    private String[] firstNames = new String[1024];
+    private String[] lastNames = new String[1024];
+    private String[] emails = new String[1024];
+    private String[] texts = new String[1024];
+    private int slotCount;
+
+    int size() {
+        return slotsById.size();
+    }
+
+    boolean contains(long id) {
+        return slotsById.containsKey(id);
+    }
+
+    void put(long id, String firstName, String lastName, String email) {
+        remove(id);
+        ensureCapacity(slotCount + 1);
+
+        int slot = slotCount++;
+        ids[slot] = id;
+        firstNames[slot] = firstName;
+        lastNames[slot] = lastName;
+        emails[slot] = email;
+        texts[slot] = lower(firstName) + '\u0001' + lower(lastName) + '\u0001' + lower(email);
+        live.set(slot);
+        slotsById.put(id, slot);
+
+        Set<Long> grams = new LinkedHashSet<>();
+        addGrams(lower(firstName), grams);
+        addGrams(lower(lastName), grams);
+        addGrams(lower(email), grams);
+        for (Long gram : grams) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(slot);
+        }
+
+        if (slotCount - slotsById.size() > Math.max(1024, slotsById.size())) {
+            compact();
+        }
+    }
+
+    void remove(long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot != null) {
+            live.clear(slot);
+            firstNames[slot] = null;
+            lastNames[slot] = null;
+            emails[slot] = null;
+            texts[slot] = null;
+        }
+    }
+
+    void clear() {
+        slotsById.clear();
+        postings.clear();
+        live.clear();
+        slotCount = 0;
+    }
+
+    int[] match(String keyword) {
+        String needle = lower(keyword);
+        if (needle.length() < GRAM) {
+            return verify(live.stream().toArray(), needle);
+        }
+
+        Set<Long> grams = new LinkedHashSet<>();
+        addGrams(needle, grams);
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (Long gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+        return verify(candidates, needle);
+    }
+
+    long[] page(int[] slots, Comparator<Integer> order, long offset, int limit) {
+        if (offset >= slots.length) {
+            return new long[0];
+        }
+        int end = (int) Math.min(slots.length, offset + limit);
+
+        PriorityQueue<Integer> top = new PriorityQueue<>(end, order.reversed());
+        for (int slot : slots) {
+            top.offer(slot);
+            if (top.size() > end) {
+                top.poll();
+            }
+        }
+        Integer[] sorted = top.toArray(new Integer[0]);
+        Arrays.sort(sorted, order);
+
+        long[] result = new long[end - (int) offset];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[sorted[(int) offset + i]];
+        }
+        return result;
+    }
+
+    Comparator<Integer> comparator(String property) {
+        return switch (property) {
+            case "id" -> Comparator.comparingLong(slot -> ids[slot]);
+            case "firstName" -> Comparator.comparing(slot -> firstNames[slot]);
+            case "lastName" -> Comparator.comparing(slot -> lastNames[slot]);
+            case "email" -> Comparator.comparing(slot -> emails[slot]);
+            default -> null;
+        };
+    }
+
+    void compact() {
+        long[] oldIds = ids;
+        String[] oldFirstNames = firstNames;
+        String[] oldLastNames = lastNames;
+        String[] oldEmails = emails;
+        int[] liveSlots = live.stream().toArray();
+
+        ids = new long[Math.max(1024, liveSlots.length * 2)];
+        firstNames = new String[ids.length];
+        lastNames = new String[ids.length];
+        emails = new String[ids.length];
+        texts = new String[ids.length];
+        clear();
+
+        for (int slot : liveSlots) {
+            put(oldIds[slot], oldFirstNames[slot], oldLastNames[slot], oldEmails[slot]);
+        }
+    }
+
+    private int[] verify(int[] candidates, String needle) {
+        int[] matches = new int[candidates.length];
+        int count = 0;
+        for (int slot : candidates) {
+            if (live.get(slot) && texts[slot].contains(needle)) {
+                matches[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private static int[] intersect(int[] left, IntList right) {
+        int[] result = new int[Math.min(left.length, right.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.size) {
+            int a = left[i];
+            int b = right.values[j];
+            if (a == b) {
+                result[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void addGrams(String value, Set<Long> grams) {
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int length = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            firstNames = Arrays.copyOf(firstNames, length);
+            lastNames = Arrays.copyOf(lastNames, length);
+            emails = Arrays.copyOf(emails, length);
+            texts = Arrays.copyOf(texts, length);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package com.rhb.demo.service;
 
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.cache.ResourceVersions;
+import com.rhb.demo.dto.DepartmentHeadcount;
+import com.rhb.demo.dto.DepartmentPatch;
+import com.rhb.demo.dto.LocationHeadcount;
 import com.rhb.demo.entity.Department;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.exception.PreconditionFailedException;
 import com.rhb.demo.exception.ResourceNotFoundException;
+import com.rhb.demo.projection.HeadcountAggregates;
 import com.rhb.demo.repository.DepartmentRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -18,36 +32,137 @@ public class DepartmentService {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     private final DepartmentRepository departmentRepository;
+    private final DepartmentCache departmentCache;
+    private final HeadcountAggregates headcountAggregates;
+    private final ResourceVersions resourceVersions;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Department> getAllDepartments() {
         log.info("Fetching all departments");
         return departmentRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllDepartments(Consumer<Department> consumer) {
+        log.info("Streaming all departments");
+        try (Stream<Department> rows = departmentRepository.streamAll()) {
+            rows.forEach(consumer);
+        }
+    }
+
     public Department getDepartmentById(Long id) {
         log.info("Fetching department with id: {}", id);
-        return departmentRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + id));
+        return departmentCache.find(id).orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + id));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<DepartmentHeadcount> getHeadcountByDepartment() {
+        List<DepartmentHeadcount> headcounts = headcountAggregates.byDepartment();
+        return headcounts != null ? headcounts : departmentRepository.countHeadcountByDepartment();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<LocationHeadcount> getHeadcountByLocation() {
+        List<LocationHeadcount> headcounts = headcountAggregates.byLocation();
+        return headcounts != null ? headcounts : departmentRepository.countHeadcountByLocation();
+    }
+
+    public String getETag(Department department) {
+        return resourceVersions.etag("department", department.getId(), department.getVersion());
+    }
+
+    public String getDepartmentsETag() {
+        return resourceVersions.etag("departments", resourceVersions.getDepartments());
     }
 
     public Department createDepartment(Department department) {
         log.info("Creating new department: {}", department.getName());
-        return departmentRepository.save(department);
+        Department saved = departmentRepository.save(department);
+        eventPublisher.publishEvent(DepartmentChangedEvent.created(saved));
+        return saved;
     }
 
     public Department updateDepartment(Long id, Department departmentDetails) {
+        return updateDepartment(id, departmentDetails, null);
+    }
+
+    public Department updateDepartment(Long id, Department departmentDetails, String ifMatch) {
         log.info("Updating department with id: {}", id);
 
-        Department department = getDepartmentById(id);
+        Department department = findDepartment(id);
+        checkIfMatch(department, ifMatch);
         department.setName(departmentDetails.getName());
         department.setLocation(departmentDetails.getLocation());
 
-        return departmentRepository.save(department);
+        // flushed here so the event carries the incremented version to the department cache
+        Department saved = departmentRepository.saveAndFlush(department);
+        eventPublisher.publishEvent(DepartmentChangedEvent.updated(saved));
+        return saved;
+    }
+
+    public Department patchDepartment(Long id, DepartmentPatch patch) {
+        return patchDepartment(id, patch, null);
+    }
+
+    /**
+     * Applies the patch in one statement; an {@code If-Match} tag is checked there through the department
+     * version it carries.
+     */
+    public Department patchDepartment(Long id, DepartmentPatch patch, String ifMatch) {
+        log.info("Patching department with id: {}", id);
+
+        if (!patch.hasChanges()) {
+            throw new IllegalArgumentException("Patch must contain at least one field");
+        }
+        Set<Long> versions = ifMatch == null ? null : resourceVersions.versions(ifMatch, "department", id);
+        Department patched = (versions != null && versions.isEmpty() ? Optional.<Department>empty() : departmentRepository.patchDepartment(id, patch, versions))
+                .orElseThrow(() -> notPatched(id, ifMatch));
+        eventPublisher.publishEvent(DepartmentChangedEvent.updated(patched));
+        return patched;
+    }
+
+    /**
+     * Moves every department at one location to another in one statement and returns how many were moved.
+     */
+    public int relocateDepartments(String fromLocation, String toLocation) {
+        log.info("Relocating departments from {} to {}", fromLocation, toLocation);
+        if (fromLocation.equals(toLocation)) {
+            throw new IllegalArgumentException("Source and target location must differ");
+        }
+
+        List<Department> moved = departmentRepository.relocateDepartments(fromLocation, toLocation);
+        moved.forEach(department -> eventPublisher.publishEvent(DepartmentChangedEvent.updated(department)));
+        return moved.size();
     }
 
     public void deleteDepartment(Long id) {
+        deleteDepartment(id, null);
+    }
+
+    public void deleteDepartment(Long id, String ifMatch) {
         log.info("Deleting department with id: {}", id);
-        Department department = getDepartmentById(id);
+        Department department = findDepartment(id);
+        checkIfMatch(department, ifMatch);
         departmentRepository.delete(department);
+        eventPublisher.publishEvent(DepartmentChangedEvent.deleted(id));
+    }
+
+    private RuntimeException notPatched(Long id, String ifMatch) {
+        Department current = ifMatch == null ? null : departmentRepository.findById(id).orElse(null);
+        if (current == null) {
+            return new ResourceNotFoundException("Department not found with id: " + id);
+        }
+        return new PreconditionFailedException("Department " + id + " has been modified, current ETag is " + getETag(current));
+    }
+
+    private void checkIfMatch(Department department, String ifMatch) {
+        if (ifMatch != null && !resourceVersions.matches(ifMatch, getETag(department))) {
+            throw new PreconditionFailedException("Department " + department.getId() + " has been modified, current ETag is " + getETag(department));
+        }
+    }
+
+    private Department findDepartment(Long id) {
+        return departmentRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + id));
     }
 }
 
@@ -0,0 +1,221 @@
+package com.rhb.demo.service;
+
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.exception.GroupCommitTimeoutException;
+import com.rhb.demo.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group commit for {@code POST /api/employees}. Concurrent creates are queued and written by one thread,
+ * up to {@code app.employee.group-commit.max-batch} rows per transaction; a batch is committed once it is
+ * full or its oldest row has waited {@code max-delay}. Batches go through
+ * {@link EmployeeService#createEmployees(List)}, so rows are checked the same way as a single create; when a
+ * batch fails it is retried one row per transaction, so a bad row (missing fields, unknown department,
+ * duplicate email) fails only its own caller. When the queue is full the caller writes its row itself,
+ * which holds submitters to the commit rate instead of letting the queue grow.
+ */
+@Service
+public class EmployeeGroupCommitWriter {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final EmployeeService employeeService;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final Duration timeout;
+    private final BlockingQueue<PendingCreate> queue;
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong retriedBatches = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private volatile int largestBatch;
+
+    public EmployeeGroupCommitWriter(EmployeeService employeeService,
+                                     @Value("${app.employee.group-commit.enabled:false}") boolean enabled,
+                                     @Value("${app.employee.group-commit.max-batch:100}") int maxBatch,
+                                     @Value("${app.employee.group-commit.max-delay:500us}") Duration maxDelay,
+                                     @Value("${app.employee.group-commit.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${app.employee.group-commit.timeout:10s}") Duration timeout) {
+        this.employeeService = employeeService;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("employee-group-commit-");
+        threadFactory.setDaemon(true);
+        this.writer = threadFactory.newThread(this::run);
+        if (enabled) {
+            running = true;
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops taking new rows and writes the queued ones before returning.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(timeout.toMillis());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates the employee in the next group commit and waits for it.
+     *
+     * @throws ResourceNotFoundException   when the department does not exist
+     * @throws IllegalArgumentException    when a field is missing or the email is already used
+     * @throws GroupCommitTimeoutException when the row's batch has not committed within {@code timeout};
+     *                                     the employee may still have been created
+     */
+    public Employee create(Employee employee) {
+        CompletableFuture<Employee> future = submit(employee);
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Employee create failed", e.getCause());
+        } catch (TimeoutException e) {
+            // not written yet: the writer skips it; already in a batch: it is created, but nobody is told
+            future.cancel(false);
+            throw new GroupCommitTimeoutException("Employee create timed out after " + timeout.toMillis()
+                    + " ms in the group commit queue, the employee may have been created");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        }
+    }
+
+    /**
+     * Queues the employee for the next group commit; the future completes with the saved employee or the
+     * row's error once its batch has committed.
+     */
+    public CompletableFuture<Employee> submit(Employee employee) {
+        PendingCreate pending = new PendingCreate(employee, System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            overflowed.incrementAndGet();
+            try {
+                pending.future.complete(employeeService.createEmployee(employee));
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+        return pending.future;
+    }
+
+    public Map<String, Object> stats() {
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("batches", batchCount);
+        stats.put("rows", rows.get());
+        stats.put("averageBatch", batchCount == 0 ? 0 : (double) rows.get() / batchCount);
+        stats.put("largestBatch", largestBatch);
+        stats.put("retriedBatches", retriedBatches.get());
+        stats.put("overflowed", overflowed.get());
+        stats.put("queued", queue.size());
+        return stats;
+    }
+
+    private void run() {
+        List<PendingCreate> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCreate first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // rows that queued up during the last commit are taken at once, the wait is counted from the oldest
+                long deadline = first.queuedAt + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingCreate next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future.completeExceptionally(new IllegalStateException("Group commit writer stopped")));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit of {} employees failed", batch.size(), e);
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingCreate> batch) {
+        // callers that stopped waiting are dropped, their rows may not have been written yet
+        List<PendingCreate> waiting = batch.stream().filter(pending -> !pending.future.isDone()).toList();
+        if (waiting.isEmpty()) {
+            return;
+        }
+
+        batches.incrementAndGet();
+        rows.addAndGet(waiting.size());
+        largestBatch = Math.max(largestBatch, waiting.size());
+        try {
+            List<Employee> saved = employeeService.createEmployees(waiting.stream().map(PendingCreate::employee).toList());
+            for (int i = 0; i < waiting.size(); i++) {
+                waiting.get(i).future.complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (waiting.size() == 1) {
+                waiting.get(0).future.completeExceptionally(e);
+                return;
+            }
+            log.warn("Group commit of {} employees failed ({}), retrying one at a time", waiting.size(), e.getMessage());
+            retriedBatches.incrementAndGet();
+            for (PendingCreate pending : waiting) {
+                // undo what the failed batch assigned, or the retry would be taken for an update
+                pending.employee.setId(null);
+                pending.employee.setVersion(null);
+                try {
+                    pending.future.complete(employeeService.createEmployee(pending.employee));
+                } catch (RuntimeException rowFailure) {
+                    pending.future.completeExceptionally(rowFailure);
+                }
+            }
+        }
+    }
+
+    private record PendingCreate(Employee employee, long queuedAt, CompletableFuture<Employee> future) {
+    }
+}
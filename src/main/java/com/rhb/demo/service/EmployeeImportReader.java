@@ -0,0 +1,156 @@
+package com.rhb.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.dto.EmployeeImportRow;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+final class EmployeeImportReader {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private EmployeeImportReader() {
+    }
+
+    static Iterator<EmployeeImportRow> open(ObjectMapper objectMapper, InputStream inputStream, MediaType contentType) throws IOException {
+        if (contentType != null && TEXT_CSV.includes(contentType)) {
+            return new CsvIterator(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+        }
+        // Handles both a JSON array and whitespace separated objects (NDJSON)
+        return objectMapper.readerFor(EmployeeImportRow.class).readValues(inputStream);
+    }
+
+    static final class RowFormatException extends IllegalArgumentException {
+
+        RowFormatException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class CsvIterator implements Iterator<EmployeeImportRow> {
+
+        private final BufferedReader reader;
+        private final int[] columns;
+        private List<String> next;
+
+        CsvIterator(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV import requires a header row");
+            }
+            this.columns = new int[]{-1, -1, -1, -1};
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "firstname" -> columns[0] = i;
+                    case "lastname" -> columns[1] = i;
+                    case "email" -> columns[2] = i;
+                    case "departmentid" -> columns[3] = i;
+                    default -> {
+                    }
+                }
+            }
+            if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+                throw new IllegalArgumentException("CSV header must contain firstName, lastName and email columns");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = readRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public EmployeeImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<String> record = next;
+            next = null;
+
+            EmployeeImportRow row = new EmployeeImportRow(column(record, 0), column(record, 1), column(record, 2), null);
+            String departmentId = column(record, 3);
+            if (departmentId != null) {
+                try {
+                    row.setDepartmentId(Long.valueOf(departmentId));
+                } catch (NumberFormatException e) {
+                    throw new RowFormatException("Invalid departmentId: " + departmentId);
+                }
+            }
+            return row;
+        }
+
+        private String column(List<String> record, int column) {
+            int index = columns[column];
+            if (index < 0 || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            while (line != null && line.isBlank()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                field.append('\n');
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
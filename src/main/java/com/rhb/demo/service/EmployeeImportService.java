@@ -0,0 +1,206 @@
+package com.rhb.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.dto.EmployeeImportResult;
+import com.rhb.demo.dto.EmployeeImportRow;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class EmployeeImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final EmployeeRepository employeeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final DepartmentCache departmentCache;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public EmployeeImportService(EmployeeRepository employeeRepository,
+                                 DepartmentRepository departmentRepository,
+                                 DepartmentCache departmentCache,
+                                 EntityManager entityManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.import.chunk-size:1000}") int chunkSize) {
+        this.employeeRepository = employeeRepository;
+        this.departmentRepository = departmentRepository;
+        this.departmentCache = departmentCache;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public EmployeeImportResult importEmployees(InputStream inputStream, MediaType contentType) throws IOException {
+        log.info("Importing employees, content type: {}, chunk size: {}", contentType, chunkSize);
+        long startTime = System.nanoTime();
+
+        EmployeeImportResult result = new EmployeeImportResult();
+        Iterator<EmployeeImportRow> rows = EmployeeImportReader.open(objectMapper, inputStream, contentType);
+        Set<String> seenEmails = new HashSet<>();
+        List<NumberedRow> chunk = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+
+        while (true) {
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                rowNumber++;
+                chunk.add(new NumberedRow(rowNumber, normalize(rows.next())));
+            } catch (EmployeeImportReader.RowFormatException e) {
+                reject(result, rowNumber, null, e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                reject(result, rowNumber, null, "Malformed input, import stopped: " + e.getMessage());
+                break;
+            }
+
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seenEmails, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seenEmails, result);
+        }
+
+        result.getErrors().sort(Comparator.comparingLong(EmployeeImportResult.RowError::getRow));
+        result.setTotalRows(rowNumber);
+        result.setDurationMs((System.nanoTime() - startTime) / 1_000_000);
+        log.info("Imported {} of {} employees in {} ms, {} rows failed", result.getImported(), rowNumber, result.getDurationMs(), result.getFailed());
+        return result;
+    }
+
+    private void importChunk(List<NumberedRow> chunk, Set<String> seenEmails, EmployeeImportResult result) {
+        List<NumberedRow> valid = validate(chunk, seenEmails, result);
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(valid));
+            result.setImported(result.getImported() + valid.size());
+        } catch (RuntimeException e) {
+            log.warn("Chunk insert failed ({}), retrying {} rows one at a time", e.getMessage(), valid.size());
+            entityManager.clear();
+            for (NumberedRow row : valid) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(row)));
+                    result.setImported(result.getImported() + 1);
+                } catch (RuntimeException rowFailure) {
+                    entityManager.clear();
+                    // not imported, so a later row may still use the email
+                    seenEmails.remove(row.row().getEmail());
+                    reject(result, row.number(), row.row().getEmail(), "Could not insert employee: " + rootMessage(rowFailure));
+                }
+            }
+        }
+    }
+
+    private List<NumberedRow> validate(List<NumberedRow> chunk, Set<String> seenEmails, EmployeeImportResult result) {
+        Set<Long> departmentIds = chunk.stream().map(row -> row.row().getDepartmentId()).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> knownDepartments = departmentIds.stream().filter(id -> departmentCache.find(id).isPresent()).collect(Collectors.toSet());
+        Set<String> emails = chunk.stream().map(row -> row.row().getEmail()).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<String> existingEmails = emails.isEmpty() ? Set.of() : new HashSet<>(employeeRepository.findExistingEmails(emails));
+
+        List<NumberedRow> valid = new ArrayList<>(chunk.size());
+        for (NumberedRow numbered : chunk) {
+            EmployeeImportRow row = numbered.row();
+            String error = null;
+            if (isBlank(row.getFirstName()) || isBlank(row.getLastName()) || isBlank(row.getEmail())) {
+                error = "firstName, lastName and email are required";
+            } else if (row.getDepartmentId() != null && !knownDepartments.contains(row.getDepartmentId())) {
+                error = "Department not found with id: " + row.getDepartmentId();
+            } else if (existingEmails.contains(row.getEmail()) || !seenEmails.add(row.getEmail())) {
+                error = "Duplicate email: " + row.getEmail();
+            }
+
+            if (error == null) {
+                valid.add(numbered);
+            } else {
+                reject(result, numbered.number(), row.getEmail(), error);
+            }
+        }
+        return valid;
+    }
+
+    private void persist(List<NumberedRow> rows) {
+        List<Employee> employees = new ArrayList<>(rows.size());
+        for (NumberedRow numbered : rows) {
+            EmployeeImportRow row = numbered.row();
+            Department department = row.getDepartmentId() == null ? null : departmentRepository.getReferenceById(row.getDepartmentId());
+            employees.add(new Employee(null, row.getFirstName(), row.getLastName(), row.getEmail(), department));
+        }
+
+        employeeRepository.saveAll(employees);
+        employeeRepository.flush();
+        employees.forEach(employee -> eventPublisher.publishEvent(EmployeeChangedEvent.created(employee)));
+        entityManager.clear();
+    }
+
+    private void reject(EmployeeImportResult result, long rowNumber, String email, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new EmployeeImportResult.RowError(rowNumber, email, message));
+        }
+    }
+
+    private static EmployeeImportRow normalize(EmployeeImportRow row) {
+        row.setFirstName(trim(row.getFirstName()));
+        row.setLastName(trim(row.getLastName()));
+        row.setEmail(trim(row.getEmail()));
+        return row;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private record NumberedRow(long number, EmployeeImportRow row) {
+    }
+}
@@ -1,20 +1,50 @@
 package com.rhb.demo.service;
 
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.cache.EmployeeCountCache;
+import com.rhb.demo.cache.ResourceVersions;
+import com.rhb.demo.dto.EmployeeCursor;
 import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.dto.EmployeePatch;
 import com.rhb.demo.entity.Department;
 import com.rhb.demo.entity.Employee;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.exception.PreconditionFailedException;
 import com.rhb.demo.exception.ResourceNotFoundException;
-import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.projection.EmployeeLocationProjection;
 import com.rhb.demo.repository.EmployeeRepository;
+import com.rhb.demo.search.EmployeeSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,70 +53,377 @@ public class EmployeeService {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     private final EmployeeRepository employeeRepository;
-    private final DepartmentRepository departmentRepository;
+    private final DepartmentCache departmentCache;
+    private final EmployeeSearchIndex employeeSearchIndex;
+    private final EmployeeCountCache employeeCountCache;
+    private final EmployeeLocationProjection employeeLocationProjection;
+    private final ResourceVersions resourceVersions;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Employee> getAllEmployees() {
         log.info("Fetching all employees");
         return employeeRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllEmployees(Consumer<Employee> consumer) {
+        log.info("Streaming all employees");
+        try (Stream<EmployeeDepartmentDTO> rows = employeeRepository.streamAll()) {
+            rows.map(this::toEmployee).forEach(consumer);
+        }
+    }
+
     public Employee getEmployeeById(Long id) {
         log.info("Fetching employee with id: {}", id);
         return employeeRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + id));
     }
 
+    /**
+     * ETag of the employee read from its and its department's version columns, without loading the row,
+     * or {@code null} when it does not exist.
+     */
+    @Transactional(readOnly = true)
+    public String getEmployeeETag(Long id) {
+        return employeeRepository.findVersionById(id)
+                .map(version -> resourceVersions.etag("employee", id, version.getVersion(), version.getDepartmentId(), version.getDepartmentVersion()))
+                .orElse(null);
+    }
+
+    public String getETag(Employee employee) {
+        Department department = employee.getDepartment();
+        return resourceVersions.etag("employee", employee.getId(), employee.getVersion(),
+                department != null ? department.getId() : null, department != null ? department.getVersion() : null);
+    }
+
+    public String getEmployeesETag() {
+        return resourceVersions.etag("employees", resourceVersions.getEmployees(), resourceVersions.getDepartments());
+    }
+
+    /**
+     * ETag for the employee/department listings, taken from whichever source {@link #getEmployeesWithDepartment()}
+     * and {@link #getEmployeesByLocation(String)} read.
+     */
+    public String getEmployeesWithDepartmentETag() {
+        return employeeLocationProjection.isReady()
+                ? resourceVersions.etag("projection", employeeLocationProjection.getVersion())
+                : getEmployeesETag();
+    }
+
     public Employee createEmployee(Employee employee) {
         log.info("Creating new employee: {}", employee.getEmail());
+        return saveNewEmployees(List.of(employee)).get(0);
+    }
 
-        if (employee.getDepartment() != null && employee.getDepartment().getId() != null) {
-            Department department = departmentRepository.findById(employee.getDepartment().getId()).orElseThrow(() -> new ResourceNotFoundException("Department not found"));
-            employee.setDepartment(department);
+    /**
+     * Creates the employees in one transaction. Every row is checked before any is written, so one bad row
+     * fails the whole call and nothing is created.
+     *
+     * @throws IllegalArgumentException  when a field is missing or an email is already used
+     * @throws ResourceNotFoundException when a department does not exist
+     */
+    public List<Employee> createEmployees(List<Employee> employees) {
+        log.info("Creating {} new employees", employees.size());
+        return saveNewEmployees(employees);
+    }
+
+    private List<Employee> saveNewEmployees(List<Employee> employees) {
+        Set<String> emails = new HashSet<>();
+        for (Employee employee : employees) {
+            if (isBlank(employee.getFirstName()) || isBlank(employee.getLastName()) || isBlank(employee.getEmail())) {
+                throw new IllegalArgumentException("firstName, lastName and email are required");
+            }
+            if (!emails.add(employee.getEmail())) {
+                throw new IllegalArgumentException("Duplicate email: " + employee.getEmail());
+            }
+        }
+        List<String> existingEmails = employeeRepository.findExistingEmails(emails);
+        if (!existingEmails.isEmpty()) {
+            throw new IllegalArgumentException("Duplicate email: " + existingEmails.get(0));
+        }
+        for (Employee employee : employees) {
+            if (employee.getDepartment() != null && employee.getDepartment().getId() != null) {
+                Department department = departmentCache.find(employee.getDepartment().getId()).orElseThrow(() -> new ResourceNotFoundException("Department not found"));
+                employee.setDepartment(department);
+            }
         }
 
-        return employeeRepository.save(employee);
+        List<Employee> saved;
+        try {
+            saved = employeeRepository.saveAll(employees);
+            employeeRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // an email taken by a concurrent create after the check above, or a department deleted since it was cached
+            throw integrityViolation(e, "create", employees.stream().map(Employee::getDepartment).filter(Objects::nonNull).map(Department::getId).toList());
+        }
+        saved.forEach(employee -> eventPublisher.publishEvent(EmployeeChangedEvent.created(employee)));
+        return saved;
     }
 
     public Employee updateEmployee(Long id, Employee employeeDetails) {
+        return updateEmployee(id, employeeDetails, null);
+    }
+
+    public Employee updateEmployee(Long id, Employee employeeDetails, String ifMatch) {
         log.info("Updating employee with id: {}", id);
 
         Employee employee = getEmployeeById(id);
+        checkIfMatch(employee, ifMatch);
         employee.setFirstName(employeeDetails.getFirstName());
         employee.setLastName(employeeDetails.getLastName());
         employee.setEmail(employeeDetails.getEmail());
 
         if (employeeDetails.getDepartment() != null && employeeDetails.getDepartment().getId() != null) {
-            Department department = departmentRepository.findById(employeeDetails.getDepartment().getId()).orElseThrow(() -> new ResourceNotFoundException("Department not found"));
+            Department department = departmentCache.find(employeeDetails.getDepartment().getId()).orElseThrow(() -> new ResourceNotFoundException("Department not found"));
             employee.setDepartment(department);
         }
 
-        return employeeRepository.save(employee);
+        Employee saved;
+        try {
+            saved = employeeRepository.saveAndFlush(employee);
+        } catch (DataIntegrityViolationException e) {
+            throw integrityViolation(e, "update", employee.getDepartment() != null ? List.of(employee.getDepartment().getId()) : List.of());
+        }
+        eventPublisher.publishEvent(EmployeeChangedEvent.updated(saved));
+        return saved;
+    }
+
+    public Employee patchEmployee(Long id, EmployeePatch patch) {
+        return patchEmployee(id, patch, null);
+    }
+
+    /**
+     * Applies the patch in one statement; an {@code If-Match} tag is checked there through the employee
+     * version it carries.
+     */
+    public Employee patchEmployee(Long id, EmployeePatch patch, String ifMatch) {
+        log.info("Patching employee with id: {}", id);
+
+        if (!patch.hasChanges()) {
+            throw new IllegalArgumentException("Patch must contain at least one field");
+        }
+        if (isBlankIfSet(patch.getFirstName()) || isBlankIfSet(patch.getLastName()) || isBlankIfSet(patch.getEmail())) {
+            throw new IllegalArgumentException("firstName, lastName and email must not be blank");
+        }
+        Department department = null;
+        if (patch.getDepartmentId() != null) {
+            department = departmentCache.find(patch.getDepartmentId()).orElseThrow(() -> new ResourceNotFoundException("Department not found"));
+        }
+
+        Set<Long> versions = ifMatch == null ? null : resourceVersions.versions(ifMatch, "employee", id);
+        Employee patched;
+        try {
+            patched = (versions != null && versions.isEmpty() ? Optional.<Employee>empty() : employeeRepository.patchEmployee(id, patch, versions))
+                    .orElseThrow(() -> notPatched(id, ifMatch));
+        } catch (DataIntegrityViolationException e) {
+            throw integrityViolation(e, "patch", patch.getDepartmentId() != null ? List.of(patch.getDepartmentId()) : List.of());
+        }
+        if (patched.getDepartment() != null) {
+            patched.setDepartment(department != null ? department : departmentCache.find(patched.getDepartment().getId()).orElse(patched.getDepartment()));
+        }
+        eventPublisher.publishEvent(EmployeeChangedEvent.updated(patched));
+        return patched;
     }
 
     public void deleteEmployee(Long id) {
+        deleteEmployee(id, null);
+    }
+
+    public void deleteEmployee(Long id, String ifMatch) {
         log.info("Deleting employee with id: {}", id);
         Employee employee = getEmployeeById(id);
+        checkIfMatch(employee, ifMatch);
         employeeRepository.delete(employee);
+        eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id));
+    }
+
+    /**
+     * Deletes the employees in one statement and returns how many existed; unknown ids are ignored.
+     */
+    public int deleteEmployees(List<Long> ids) {
+        log.info("Deleting {} employees", ids.size());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Employee ids must not be null");
+        }
+
+        List<Long> deleted = employeeRepository.deleteEmployees(ids);
+        deleted.forEach(id -> eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id)));
+        return deleted.size();
+    }
+
+    /**
+     * Moves every employee of one department to another in one statement and returns how many were moved.
+     */
+    public int reassignDepartment(Long fromDepartmentId, Long toDepartmentId) {
+        log.info("Reassigning employees of department {} to department {}", fromDepartmentId, toDepartmentId);
+        if (fromDepartmentId.equals(toDepartmentId)) {
+            throw new IllegalArgumentException("Source and target department must differ");
+        }
+        departmentCache.find(fromDepartmentId).orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + fromDepartmentId));
+        Department target = departmentCache.find(toDepartmentId).orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + toDepartmentId));
+
+        List<Employee> moved = employeeRepository.reassignDepartment(fromDepartmentId, toDepartmentId);
+        for (Employee employee : moved) {
+            employee.setDepartment(target);
+            eventPublisher.publishEvent(EmployeeChangedEvent.updated(employee));
+        }
+        return moved.size();
     }
 
     public Page<Employee> searchEmployees(String keyword, Pageable pageable) {
-        String searchKeyword = keyword == null || keyword.isBlank() ? null : "%" + keyword.trim().toLowerCase() + "%";
+        String searchKeyword = toSearchKeyword(keyword);
         log.info("Searching employees with keyword: {}, page: {}, size: {}", searchKeyword, pageable.getPageNumber(), pageable.getPageSize());
 
-        if (searchKeyword == null) {
-            return employeeRepository.findAll(pageable);
+        EmployeeSearchIndex.SearchResult result = searchKeyword == null ? null : employeeSearchIndex.search(keyword.trim(), pageable);
+        if (result != null) {
+            return new PageImpl<>(findAllByIdInOrder(result.ids()), pageable, result.total());
+        }
+
+        // the count runs on its own connection while this thread loads the page
+        CompletableFuture<Long> total = employeeCountCache.count(searchKeyword);
+        Slice<Employee> slice = findSlice(searchKeyword, pageable);
+        List<Employee> content = slice.getContent();
+        if (!slice.hasNext() && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size());
+        }
+        return new PageImpl<>(content, pageable, employeeCountCache.await(total));
+    }
+
+    public Slice<Employee> searchEmployeesSlice(String keyword, Pageable pageable) {
+        String searchKeyword = toSearchKeyword(keyword);
+        log.info("Searching employees without total with keyword: {}, page: {}, size: {}", searchKeyword, pageable.getPageNumber(), pageable.getPageSize());
+
+        EmployeeSearchIndex.SearchResult result = searchKeyword == null ? null : employeeSearchIndex.search(keyword.trim(), pageable);
+        if (result != null) {
+            return new SliceImpl<>(findAllByIdInOrder(result.ids()), pageable, pageable.getOffset() + pageable.getPageSize() < result.total());
         }
+        return findSlice(searchKeyword, pageable);
+    }
 
-        return employeeRepository.searchEmployees(searchKeyword, pageable);
+    private Slice<Employee> findSlice(String searchKeyword, Pageable pageable) {
+        return searchKeyword == null ? employeeRepository.findAllBy(pageable) : employeeRepository.searchEmployees(searchKeyword, pageable);
     }
 
+    private static String toSearchKeyword(String keyword) {
+        return keyword == null || keyword.isBlank() ? null : "%" + keyword.trim().toLowerCase() + "%";
+    }
+
+    /**
+     * A write the checks let through can still break a constraint: the email may have been taken since, and
+     * the department cache may still hold a department deleted by another instance or through SQL. The
+     * latter is evicted and reported as not found, like a department the cache does not know.
+     */
+    private RuntimeException integrityViolation(DataIntegrityViolationException e, String action, Collection<Long> departmentIds) {
+        if (violates(e, Employee.DEPARTMENT_FOREIGN_KEY)) {
+            departmentIds.forEach(departmentCache::evict);
+            return new ResourceNotFoundException("Department not found");
+        }
+        return new IllegalArgumentException("Could not " + action + " employee: " + rootMessage(e));
+    }
+
+    private static boolean violates(Throwable throwable, String constraint) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toUpperCase(Locale.ROOT).contains(constraint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RuntimeException notPatched(Long id, String ifMatch) {
+        String etag = ifMatch == null ? null : getEmployeeETag(id);
+        if (etag == null) {
+            return new ResourceNotFoundException("Employee not found with id: " + id);
+        }
+        return new PreconditionFailedException("Employee " + id + " has been modified, current ETag is " + etag);
+    }
+
+    private void checkIfMatch(Employee employee, String ifMatch) {
+        if (ifMatch != null && !resourceVersions.matches(ifMatch, getETag(employee))) {
+            throw new PreconditionFailedException("Employee " + employee.getId() + " has been modified, current ETag is " + getETag(employee));
+        }
+    }
+
+    private Employee toEmployee(EmployeeDepartmentDTO row) {
+        Department department = row.getDepartmentId() == null ? null : new Department(row.getDepartmentId(), row.getDepartmentName(), row.getDepartmentLocation());
+        return new Employee(row.getEmployeeId(), row.getFirstName(), row.getLastName(), row.getEmail(), department);
+    }
+
+    private List<Employee> findAllByIdInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Employee> byId = employeeRepository.findAllById(idList).stream().collect(Collectors.toMap(Employee::getId, Function.identity()));
+        return idList.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isBlankIfSet(String value) {
+        return value != null && value.isBlank();
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    public Slice<Employee> searchEmployeesAfter(String keyword, Sort.Order order, EmployeeCursor after, int size) {
+        if (!EmployeeCursor.SORT_PROPERTIES.contains(order.getProperty())) {
+            throw new IllegalArgumentException("Cursor pagination does not support sorting by: " + order.getProperty());
+        }
+        if (after != null && !after.matches(order)) {
+            throw new IllegalArgumentException("Cursor does not match sortBy/sortDirection of the request");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        String searchKeyword = toSearchKeyword(keyword);
+        log.info("Searching employees with keyword: {}, after id: {}, size: {}", searchKeyword, after != null ? after.getId() : null, size);
+
+        List<Employee> rows = after == null
+                ? employeeRepository.searchEmployeesAfter(searchKeyword, order, null, null, size + 1)
+                : employeeRepository.searchEmployeesAfter(searchKeyword, order, after.getValue(), after.getId(), size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<Employee> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by(order)), hasNext);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<EmployeeDepartmentDTO> getEmployeesWithDepartment() {
         log.info("Fetching all employees with department details");
-        return employeeRepository.findAllWithDepartment();
+        List<EmployeeDepartmentDTO> rows = employeeLocationProjection.findAll();
+        return rows != null ? rows : employeeRepository.findAllWithDepartment();
     }
 
+    @Transactional(readOnly = true)
+    public void streamEmployeesWithDepartment(Consumer<EmployeeDepartmentDTO> consumer) {
+        log.info("Streaming all employees with department details");
+        List<EmployeeDepartmentDTO> projected = employeeLocationProjection.findAll();
+        if (projected != null) {
+            projected.forEach(consumer);
+            return;
+        }
+        try (Stream<EmployeeDepartmentDTO> rows = employeeRepository.streamAllWithDepartment()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<EmployeeDepartmentDTO> getEmployeesByLocation(String location) {
         log.info("Fetching employees by location: {}", location);
-        return employeeRepository.findEmployeesByLocation(location);
+        List<EmployeeDepartmentDTO> rows = employeeLocationProjection.findByLocation(location);
+        return rows != null ? rows : employeeRepository.findEmployeesByLocation(location);
     }
 }
-
@@ -1,45 +1,260 @@
 package com.rhb.demo.service;
 
+import com.rhb.demo.cache.ExternalResponseCache;
+import com.rhb.demo.dto.ExternalCallResult;
+import com.rhb.demo.exception.ExternalCallRejectedException;
+import com.rhb.demo.limiter.ExternalCallLimiter;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calls external URLs through a pooled Apache HttpClient. Connections are kept alive and reused per host,
+ * connect, pool-wait and read timeouts bound every call, and response bodies are streamed and discarded
+ * rather than buffered, which also leaves the connection ready for reuse. Status and length of cacheable
+ * responses are kept in {@link ExternalResponseCache}: fresh entries are answered without a call, stale ones
+ * are revalidated with a conditional GET, and concurrent misses for one URL share a single upstream call.
+ * Upstream calls are admitted per host by {@link ExternalCallLimiter}; rejected calls fail fast.
+ */
 @Service
+@Lazy
 public class ExternalApiService {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
     private final RestTemplate restTemplate;
+    private final ExternalResponseCache responseCache;
+    private final ExternalCallLimiter callLimiter;
+    private final Map<String, CompletableFuture<ResponseSummary>> inFlight = new ConcurrentHashMap<>();
 
-    public ExternalApiService() {
-        this.restTemplate = new RestTemplate();
+    public ExternalApiService(ExternalResponseCache responseCache,
+                              ExternalCallLimiter callLimiter,
+                              @Value("${app.external.http.max-connections:200}") int maxConnections,
+                              @Value("${app.external.http.max-connections-per-host:20}") int maxConnectionsPerHost,
+                              @Value("${app.external.http.connect-timeout:2s}") Duration connectTimeout,
+                              @Value("${app.external.http.read-timeout:10s}") Duration readTimeout,
+                              @Value("${app.external.http.pool-timeout:1s}") Duration poolTimeout,
+                              @Value("${app.external.http.keep-alive:30s}") Duration keepAlive) {
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        this.responseCache = responseCache;
+        this.callLimiter = callLimiter;
     }
 
     public String callExternalApi(String url) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
             log.info("Calling external API: {}", url);
 
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            int statusCode = response.getStatusCode().value();
-            String responseBody = response.getBody();
-            int contentLength = responseBody != null ? responseBody.length() : 0;
+            ResponseSummary response = execute(url);
 
-            log.info("External API response - Status: {}, Length: {} bytes", statusCode, contentLength);
+            log.info("External API response - Status: {}, Length: {} bytes", response.statusCode(), response.contentLength());
 
-            return String.format("External API called successfully. Status: %d, Content Length: %d bytes", statusCode, contentLength);
+            return String.format("External API called successfully. Status: %d, Content Length: %d bytes", response.statusCode(), response.contentLength());
+        } catch (ExternalCallRejectedException e) {
+            log.warn("External API call rejected: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error calling external API: {}", e.getMessage(), e);
             return "Error calling external API: " + e.getMessage();
         }
     }
-}
 
+    /**
+     * Calls the URL and reports status, length and latency instead of throwing. Error statuses are reported
+     * as results, {@code error} is only set when no response was received.
+     */
+    public ExternalCallResult call(String url) {
+        long startTime = System.nanoTime();
+        try {
+            ResponseSummary response = execute(url);
+            return new ExternalCallResult(null, url, response.statusCode(), response.contentLength(), elapsedMs(startTime), null);
+        } catch (HttpStatusCodeException e) {
+            return new ExternalCallResult(null, url, e.getStatusCode().value(), (long) e.getResponseBodyAsByteArray().length, elapsedMs(startTime), null);
+        } catch (Exception e) {
+            log.warn("External API call to {} failed: {}", url, e.getMessage());
+            return ExternalCallResult.failed(url, elapsedMs(startTime), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getPoolStats() {
+        PoolStats total = connectionManager.getTotalStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxTotal", connectionManager.getMaxTotal());
+        result.put("maxPerHost", connectionManager.getDefaultMaxPerRoute());
+        result.put("leased", total.getLeased());
+        result.put("available", total.getAvailable());
+        result.put("pending", total.getPending());
+
+        List<Map<String, Object>> hosts = new ArrayList<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            PoolStats stats = connectionManager.getStats(route);
+            Map<String, Object> host = new LinkedHashMap<>();
+            host.put("host", route.getTargetHost().toURI());
+            host.put("leased", stats.getLeased());
+            host.put("available", stats.getAvailable());
+            host.put("pending", stats.getPending());
+            hosts.add(host);
+        }
+        result.put("hosts", hosts);
+        return result;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return responseCache.getStats();
+    }
+
+    public Map<String, Object> getLimiterState() {
+        return callLimiter.getState();
+    }
+
+    private ResponseSummary execute(String url) {
+        if (!responseCache.isEnabled()) {
+            return fetch(url, null);
+        }
+
+        ExternalResponseCache.CachedResponse cached = responseCache.get(url);
+        if (cached != null && cached.isFresh()) {
+            responseCache.recordHit(cached.contentLength());
+            return new ResponseSummary(cached.statusCode(), cached.contentLength(), null);
+        }
+
+        CompletableFuture<ResponseSummary> load = new CompletableFuture<>();
+        CompletableFuture<ResponseSummary> running = inFlight.putIfAbsent(url, load);
+        if (running != null) {
+            ResponseSummary shared = join(running);
+            responseCache.recordCollapsed(shared.contentLength());
+            return shared;
+        }
+
+        try {
+            ResponseSummary response = fetch(url, cached);
+            load.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(url, load);
+        }
+    }
+
+    private ResponseSummary fetch(String url, ExternalResponseCache.CachedResponse stale) {
+        boolean conditional = stale != null && stale.hasValidators();
+        ExternalCallLimiter.Permit permit = callLimiter.acquire(url);
+        long startTime = System.nanoTime();
+        ResponseSummary response;
+        try {
+            response = restTemplate.execute(url, HttpMethod.GET, request -> {
+                request.getHeaders().set(HttpHeaders.USER_AGENT, "Mozilla/5.0");
+                if (conditional && stale.etag() != null) {
+                    request.getHeaders().set(HttpHeaders.IF_NONE_MATCH, stale.etag());
+                }
+                if (conditional && stale.lastModified() != null) {
+                    request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, stale.lastModified());
+                }
+            }, ExternalApiService::summarize);
+            permit.onSuccess(System.nanoTime() - startTime);
+        } catch (HttpClientErrorException e) {
+            permit.onSuccess(System.nanoTime() - startTime);
+            throw e;
+        } catch (RuntimeException e) {
+            permit.onFailure();
+            throw e;
+        }
+
+        if (!responseCache.isEnabled()) {
+            return response;
+        }
+        if (conditional && response.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            responseCache.refresh(url, stale, response.headers());
+            responseCache.recordRevalidation(stale.contentLength());
+            return new ResponseSummary(stale.statusCode(), stale.contentLength(), response.headers());
+        }
+        responseCache.recordMiss();
+        if (response.statusCode() == HttpStatus.OK.value()) {
+            responseCache.store(url, response.statusCode(), response.contentLength(), response.headers());
+        }
+        return response;
+    }
+
+    private static ResponseSummary join(CompletableFuture<ResponseSummary> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static long elapsedMs(long startTime) {
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    private static ResponseSummary summarize(ClientHttpResponse response) throws IOException {
+        try (InputStream body = response.getBody()) {
+            return new ResponseSummary(response.getStatusCode().value(), body.transferTo(OutputStream.nullOutputStream()), response.getHeaders());
+        }
+    }
+
+    private record ResponseSummary(int statusCode, long contentLength, HttpHeaders headers) {
+    }
+}
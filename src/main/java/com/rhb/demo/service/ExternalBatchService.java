@@ -0,0 +1,189 @@
+package com.rhb.demo.service;
+
+import com.rhb.demo.dto.ExternalCallResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Calls a batch of URLs concurrently and hands each result to the caller as soon as it completes.
+ * A batch keeps at most {@code max-concurrency} calls in flight and at most {@code max-concurrency-per-host}
+ * per host, taking hosts round-robin so one slow host cannot hold every slot. All batches share one pool of
+ * {@code max-concurrency} threads, which bounds the total number of calls across concurrent batches.
+ */
+@Service
+@Lazy
+public class ExternalBatchService {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ExternalApiService externalApiService;
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerHost;
+    private final int maxUrls;
+    private final ExecutorService executor;
+
+    public ExternalBatchService(ExternalApiService externalApiService,
+                                @Value("${app.external.batch.max-concurrency:50}") int maxConcurrency,
+                                @Value("${app.external.batch.max-concurrency-per-host:5}") int maxConcurrencyPerHost,
+                                @Value("${app.external.batch.max-urls:1000}") int maxUrls) {
+        this.externalApiService = externalApiService;
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.maxUrls = maxUrls;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("external-call-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(maxConcurrency, threadFactory);
+    }
+
+    public void validate(List<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            throw new IllegalArgumentException("urls must contain at least one URL");
+        }
+        if (urls.size() > maxUrls) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxUrls + " URLs");
+        }
+        if (urls.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("urls must not contain null");
+        }
+    }
+
+    public void callAll(List<String> urls, Consumer<ExternalCallResult> consumer) {
+        validate(urls);
+        log.info("Calling {} external URLs, max concurrency: {}, per host: {}", urls.size(), maxConcurrency, maxConcurrencyPerHost);
+        new Batch(urls, consumer).run();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // http://h/ and http://h:80/ are the same server, so the default port is filled in
+    static String hostOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null || uri.getScheme() == null) {
+                return null;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort() != -1 ? uri.getPort() : switch (scheme) {
+                case "http" -> 80;
+                case "https" -> 443;
+                default -> -1;
+            };
+            return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Scheduling state of one batch. Only the calling thread touches it; workers just run the call and
+     * post the result to {@code completed}.
+     */
+    private final class Batch {
+
+        private final List<String> urls;
+        private final Consumer<ExternalCallResult> consumer;
+        private final Map<String, Deque<Integer>> pendingByHost = new LinkedHashMap<>();
+        private final Map<String, Integer> runningByHost = new HashMap<>();
+        private final BlockingQueue<Completed> completed = new LinkedBlockingQueue<>();
+        private final List<Future<?>> futures = new ArrayList<>();
+        private int running;
+
+        Batch(List<String> urls, Consumer<ExternalCallResult> consumer) {
+            this.urls = urls;
+            this.consumer = consumer;
+        }
+
+        void run() {
+            int remaining = urls.size();
+            try {
+                for (int index = 0; index < urls.size(); index++) {
+                    String host = hostOf(urls.get(index));
+                    if (host == null) {
+                        emit(index, ExternalCallResult.failed(urls.get(index), 0, "Invalid URL"));
+                        remaining--;
+                    } else {
+                        pendingByHost.computeIfAbsent(host, h -> new ArrayDeque<>()).add(index);
+                    }
+                }
+
+                while (remaining > 0) {
+                    dispatch();
+                    Completed done = completed.take();
+                    running--;
+                    runningByHost.merge(done.host(), -1, Integer::sum);
+                    remaining--;
+                    emit(done.index(), done.result());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+
+        private void dispatch() {
+            boolean launched = true;
+            while (launched && running < maxConcurrency) {
+                launched = false;
+                Iterator<Map.Entry<String, Deque<Integer>>> hosts = pendingByHost.entrySet().iterator();
+                while (hosts.hasNext() && running < maxConcurrency) {
+                    Map.Entry<String, Deque<Integer>> entry = hosts.next();
+                    String host = entry.getKey();
+                    if (runningByHost.getOrDefault(host, 0) >= maxConcurrencyPerHost) {
+                        continue;
+                    }
+
+                    int index = entry.getValue().poll();
+                    if (entry.getValue().isEmpty()) {
+                        hosts.remove();
+                    }
+                    running++;
+                    runningByHost.merge(host, 1, Integer::sum);
+                    futures.add(executor.submit(() -> completed.add(new Completed(host, index, call(urls.get(index))))));
+                    launched = true;
+                }
+            }
+        }
+
+        private ExternalCallResult call(String url) {
+            try {
+                return externalApiService.call(url);
+            } catch (RuntimeException e) {
+                return ExternalCallResult.failed(url, 0, e.getMessage());
+            }
+        }
+
+        private void emit(int index, ExternalCallResult result) {
+            result.setIndex(index);
+            consumer.accept(result);
+        }
+    }
+
+    private record Completed(String host, int index, ExternalCallResult result) {
+    }
+}
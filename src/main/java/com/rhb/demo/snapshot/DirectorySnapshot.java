@@ -0,0 +1,278 @@
+package com.rhb.demo.snapshot;
+
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the in-memory database across restarts. Before the web server starts, the rows seeded by
+ * {@code data.sql} are replaced with the snapshot file, if there is one, using JDBC batch inserts in a
+ * single transaction; a damaged file is logged and the seed data kept. A new snapshot is written every
+ * {@code app.snapshot.interval} when departments or employees changed, and on shutdown, from one
+ * repeatable-read transaction so employees and their departments are consistent.
+ */
+@Component
+public class DirectorySnapshot implements SmartInitializingSingleton {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration interval;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long writtenChanges = -1;
+
+    public DirectorySnapshot(DataSource dataSource,
+                             EntityManagerFactory entityManagerFactory,
+                             @Value("${app.snapshot.enabled:false}") boolean enabled,
+                             @Value("${app.snapshot.path:data/directory.snapshot}") Path path,
+                             @Value("${app.snapshot.interval:5m}") Duration interval,
+                             @Value("${app.snapshot.batch-size:10000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        this.path = path;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("directory-snapshot-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.exists(path)) {
+            log.info("No directory snapshot at {}, starting from the seed data", path.toAbsolutePath());
+            return;
+        }
+        try {
+            restore();
+        } catch (IOException | SQLException | RuntimeException e) {
+            log.error("Could not restore the directory snapshot {}, starting from the seed data", path.toAbsolutePath(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::writeIfChanged, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        if (enabled) {
+            writeIfChanged();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        changes.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Replaces all departments and employees with the snapshot and restarts their id generators after the
+     * highest restored id.
+     */
+    public synchronized SnapshotFile.Summary restore() throws IOException, SQLException {
+        long startTime = System.nanoTime();
+        long changesBefore = changes.get();
+        BatchLoader loader = new BatchLoader();
+        SnapshotFile.Summary summary;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM employee");
+                statement.executeUpdate("DELETE FROM department");
+                loader.open(connection);
+                summary = SnapshotFile.read(path, loader);
+                loader.finish();
+                connection.commit();
+                // DDL commits implicitly in H2, so the id generators are moved only once the rows are in
+                statement.execute("ALTER TABLE department ALTER COLUMN id RESTART WITH " + (loader.maxDepartmentId + 1));
+                statement.execute("ALTER SEQUENCE employee_seq RESTART WITH " + (loader.maxEmployeeId + 1));
+            } catch (IOException | SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                loader.close();
+                connection.setAutoCommit(true);
+            }
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        writtenChanges = changesBefore;
+        log.info("Restored {} departments and {} employees from the directory snapshot {} ({} bytes, written {}) in {} ms",
+                summary.departments(), summary.employees(), path.toAbsolutePath(), summary.bytes(),
+                Instant.ofEpochMilli(summary.createdAt()), (System.nanoTime() - startTime) / 1_000_000);
+        return summary;
+    }
+
+    /**
+     * Writes all departments and employees to the snapshot file, replacing the previous one.
+     */
+    public synchronized SnapshotFile.Summary write() throws IOException, SQLException {
+        long startTime = System.nanoTime();
+        long changesBefore = changes.get();
+        SnapshotFile.Summary summary;
+        try (Connection connection = dataSource.getConnection();
+             SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(batchSize);
+                try (ResultSet rows = statement.executeQuery("SELECT id, name, location, version FROM department ORDER BY id")) {
+                    while (rows.next()) {
+                        writer.department(rows.getLong(1), rows.getString(2), rows.getString(3), rows.getLong(4));
+                    }
+                }
+                try (ResultSet rows = statement.executeQuery(
+                        "SELECT id, first_name, last_name, email, department_id, version FROM employee ORDER BY id")) {
+                    while (rows.next()) {
+                        writer.employee(rows.getLong(1), rows.getString(2), rows.getString(3), rows.getString(4),
+                                rows.getObject(5, Long.class), rows.getLong(6));
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+            summary = writer.commit();
+        }
+        writtenChanges = changesBefore;
+        log.info("Wrote {} departments and {} employees to the directory snapshot {} ({} bytes) in {} ms", summary.departments(),
+                summary.employees(), path.toAbsolutePath(), summary.bytes(), (System.nanoTime() - startTime) / 1_000_000);
+        return summary;
+    }
+
+    private void writeIfChanged() {
+        if (changes.get() == writtenChanges) {
+            log.debug("Directory unchanged since the last snapshot");
+            return;
+        }
+        try {
+            write();
+        } catch (IOException | SQLException | RuntimeException e) {
+            log.error("Could not write the directory snapshot {}", path.toAbsolutePath(), e);
+        }
+    }
+
+    private class BatchLoader implements SnapshotFile.RowHandler {
+
+        private PreparedStatement departmentInsert;
+        private PreparedStatement employeeInsert;
+        private int pending;
+        private boolean departmentsDone;
+        private long maxDepartmentId;
+        private long maxEmployeeId;
+
+        void open(Connection connection) throws SQLException {
+            departmentInsert = connection.prepareStatement("INSERT INTO department (id, name, location, version) VALUES (?, ?, ?, ?)");
+            employeeInsert = connection.prepareStatement(
+                    "INSERT INTO employee (id, first_name, last_name, email, department_id, version) VALUES (?, ?, ?, ?, ?, ?)");
+        }
+
+        @Override
+        public void department(long id, String name, String location, long version) {
+            try {
+                departmentInsert.setLong(1, id);
+                departmentInsert.setString(2, name);
+                departmentInsert.setString(3, location);
+                departmentInsert.setLong(4, version);
+                departmentInsert.addBatch();
+                maxDepartmentId = Math.max(maxDepartmentId, id);
+                if (++pending == batchSize) {
+                    departmentInsert.executeBatch();
+                    pending = 0;
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not insert department " + id, e);
+            }
+        }
+
+        @Override
+        public void employee(long id, String firstName, String lastName, String email, Long departmentId, long version) {
+            try {
+                if (!departmentsDone) {
+                    // departments precede employees in the file
+                    departmentInsert.executeBatch();
+                    departmentsDone = true;
+                    pending = 0;
+                }
+                employeeInsert.setLong(1, id);
+                employeeInsert.setString(2, firstName);
+                employeeInsert.setString(3, lastName);
+                employeeInsert.setString(4, email);
+                if (departmentId == null) {
+                    employeeInsert.setNull(5, Types.BIGINT);
+                } else {
+                    employeeInsert.setLong(5, departmentId);
+                }
+                employeeInsert.setLong(6, version);
+                employeeInsert.addBatch();
+                maxEmployeeId = Math.max(maxEmployeeId, id);
+                if (++pending == batchSize) {
+                    employeeInsert.executeBatch();
+                    pending = 0;
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not insert employee " + id, e);
+            }
+        }
+
+        void finish() throws SQLException {
+            departmentInsert.executeBatch();
+            employeeInsert.executeBatch();
+        }
+
+        void close() throws SQLException {
+            if (departmentInsert != null) {
+                departmentInsert.close();
+            }
+            if (employeeInsert != null) {
+                employeeInsert.close();
+            }
+        }
+    }
+}
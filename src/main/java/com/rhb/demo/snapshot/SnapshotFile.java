@@ -0,0 +1,242 @@
+package com.rhb.demo.snapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the employee directory. Layout, big-endian:
+ * <pre>
+ * header      int magic, int format version, long created (epoch ms), int departments, int employees,
+ *             long dictionary offset, int CRC32C of everything after the header
+ * departments long id, int name, int location, long version
+ * employees   long id, int first name, int last name, int email length, email bytes, long department id
+ *             (0 when none), long version
+ * dictionary  int count, then per string int length, UTF-8 bytes
+ * </pre>
+ * Names and locations repeat across rows, so they are written once to the dictionary and referenced by index
+ * ({@code -1} for null); emails are unique and stored inline. The dictionary follows the rows so the file is
+ * written in one pass; it is read first through the header offset. Files are written to a temporary file and
+ * moved into place, and read through a memory mapping.
+ */
+public final class SnapshotFile {
+
+    static final int MAGIC = 0x52484253;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 36;
+
+    private SnapshotFile() {
+    }
+
+    public interface RowHandler {
+
+        void department(long id, String name, String location, long version);
+
+        void employee(long id, String firstName, String lastName, String email, Long departmentId, long version);
+    }
+
+    public record Summary(long createdAt, int departments, int employees, long bytes) {
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    /**
+     * Maps the file, verifies its header and checksum and passes every department, then every employee, to
+     * the handler in the order they were written.
+     */
+    public static Summary read(Path path, RowHandler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a snapshot file, size " + channel.size() + ": " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + path);
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + formatVersion + ": " + path);
+        }
+        long createdAt = buffer.getLong();
+        int departments = buffer.getInt();
+        int employees = buffer.getInt();
+        long dictionaryOffset = buffer.getLong();
+        int checksum = buffer.getInt();
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE));
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Snapshot checksum mismatch, the file is damaged: " + path);
+        }
+        if (dictionaryOffset < HEADER_SIZE || dictionaryOffset >= buffer.limit()) {
+            throw new IOException("Snapshot dictionary offset out of range: " + path);
+        }
+
+        try {
+            String[] dictionary = readDictionary(buffer.slice((int) dictionaryOffset, buffer.limit() - (int) dictionaryOffset));
+            for (int i = 0; i < departments; i++) {
+                handler.department(buffer.getLong(), lookup(dictionary, buffer.getInt()), lookup(dictionary, buffer.getInt()), buffer.getLong());
+            }
+            for (int i = 0; i < employees; i++) {
+                long id = buffer.getLong();
+                String firstName = lookup(dictionary, buffer.getInt());
+                String lastName = lookup(dictionary, buffer.getInt());
+                String email = readString(buffer);
+                long departmentId = buffer.getLong();
+                handler.employee(id, firstName, lastName, email, departmentId == 0 ? null : departmentId, buffer.getLong());
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Snapshot rows do not match its header: " + path, e);
+        }
+        return new Summary(createdAt, departments, employees, buffer.limit());
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer);
+        }
+        return dictionary;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String lookup(String[] dictionary, int index) {
+        return index < 0 ? null : dictionary[index];
+    }
+
+    /**
+     * Appends departments, then employees; {@link #commit()} completes the file and moves it into place,
+     * closing without committing discards it.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final Path path;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int departments;
+        private int employees;
+        private boolean committed;
+
+        private Writer(Path path) throws IOException {
+            this.path = path;
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+        }
+
+        public void department(long id, String name, String location, long version) throws IOException {
+            if (employees > 0) {
+                throw new IllegalStateException("Departments must be written before employees");
+            }
+            ensure(24);
+            buffer.putLong(id).putInt(reference(name)).putInt(reference(location)).putLong(version);
+            departments++;
+        }
+
+        public void employee(long id, String firstName, String lastName, String email, Long departmentId, long version) throws IOException {
+            byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+            ensure(36 + emailBytes.length);
+            buffer.putLong(id).putInt(reference(firstName)).putInt(reference(lastName))
+                    .putInt(emailBytes.length).put(emailBytes)
+                    .putLong(departmentId == null ? 0 : departmentId).putLong(version);
+            employees++;
+        }
+
+        public Summary commit() throws IOException {
+            long dictionaryOffset = channel.position() + buffer.position();
+            ensure(4);
+            buffer.putInt(entries.size());
+            for (byte[] entry : entries) {
+                ensure(4 + entry.length);
+                buffer.putInt(entry.length).put(entry);
+            }
+            flush();
+            long size = channel.position();
+
+            long createdAt = System.currentTimeMillis();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(FORMAT_VERSION).putLong(createdAt).putInt(departments).putInt(employees)
+                    .putLong(dictionaryOffset).putInt((int) crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return new Summary(createdAt, departments, employees, size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private int reference(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return dictionary.computeIfAbsent(value, key -> {
+                entries.add(key.getBytes(StandardCharsets.UTF_8));
+                return entries.size() - 1;
+            });
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+                if (buffer.capacity() < bytes) {
+                    throw new IOException("Value too large for a snapshot row: " + bytes + " bytes");
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -5,14 +5,16 @@ INSERT INTO department (name, location) VALUES ('Sales', 'Chicago');
 INSERT INTO department (name, location) VALUES ('Human Resources', 'Austin');
 
 -- Insert sample employees
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('John', 'Doe', 'john.doe@example.com', 1);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Jane', 'Smith', 'jane.smith@example.com', 1);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Bob', 'Johnson', 'bob.johnson@example.com', 2);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Alice', 'Williams', 'alice.williams@example.com', 2);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Charlie', 'Brown', 'charlie.brown@example.com', 3);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Diana', 'Davis', 'diana.davis@example.com', 3);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Eve', 'Miller', 'eve.miller@example.com', 4);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Frank', 'Wilson', 'frank.wilson@example.com', 4);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Grace', 'Moore', 'grace.moore@example.com', 1);
-INSERT INTO employee (first_name, last_name, email, department_id) VALUES ('Henry', 'Taylor', 'henry.taylor@example.com', 2);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (1, 'John', 'Doe', 'john.doe@example.com', 1);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (2, 'Jane', 'Smith', 'jane.smith@example.com', 1);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (3, 'Bob', 'Johnson', 'bob.johnson@example.com', 2);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (4, 'Alice', 'Williams', 'alice.williams@example.com', 2);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (5, 'Charlie', 'Brown', 'charlie.brown@example.com', 3);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (6, 'Diana', 'Davis', 'diana.davis@example.com', 3);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (7, 'Eve', 'Miller', 'eve.miller@example.com', 4);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (8, 'Frank', 'Wilson', 'frank.wilson@example.com', 4);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (9, 'Grace', 'Moore', 'grace.moore@example.com', 1);
+INSERT INTO employee (id, first_name, last_name, email, department_id) VALUES (10, 'Henry', 'Taylor', 'henry.taylor@example.com', 2);
 
+-- Employee ids come from a pooled sequence (see Employee), continue after the sample rows
+ALTER SEQUENCE employee_seq RESTART WITH 11;
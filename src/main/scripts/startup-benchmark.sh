@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: time from JVM launch to the first successful GET /api/employees/1.
+#
+#   mvn -Pfast-startup package -DskipTests
+#   src/main/scripts/startup-benchmark.sh [runs] [port]
+#
+# Three configurations are measured on the same jar, each started <runs> times (default 5):
+#   default  java -jar with the default profile
+#   aot      unpacked class path, fast-startup profile, Spring AOT initializers
+#   aot-cds  as aot, plus the class-data-sharing archive recorded by a training run
+#             (-XX:ArchiveClassesAtExit with -Dspring.context.exit=onRefresh)
+#
+# CDS only archives classes loaded from jar files on the class path, not from the nested jars of the
+# executable jar or from directories, so the jar is unpacked to target/startup with the application classes
+# repacked into their own jar. Results are printed and written to target/startup/results.csv.
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${2:-18080}
+URL="http://localhost:${PORT}/api/employees/1"
+BASE_DIR=$(cd "$(dirname "$0")/../../.." && pwd)
+JAR=$(ls "${BASE_DIR}"/target/rhb-demo-dhruval-v-*.jar | head -1)
+WORK="${BASE_DIR}/target/startup"
+MAIN_CLASS=com.rhb.demo.RhbDemoApplication
+APP_ARGS="--server.port=${PORT}"
+
+if ! unzip -l "${JAR}" "BOOT-INF/classes/${MAIN_CLASS//.//}__ApplicationContextInitializer.class" > /dev/null; then
+    echo "No AOT initializers in ${JAR}, build it with: mvn -Pfast-startup package -DskipTests" >&2
+    exit 1
+fi
+
+rm -rf "${WORK}"
+mkdir -p "${WORK}/exploded" "${WORK}/lib"
+unzip -q "${JAR}" -d "${WORK}/exploded"
+jar --create --file "${WORK}/lib/application.jar" -C "${WORK}/exploded/BOOT-INF/classes" .
+cp "${WORK}"/exploded/BOOT-INF/lib/*.jar "${WORK}/lib/"
+# the archive is only used when the class path matches the training run exactly, so it is listed in a fixed order
+CLASS_PATH=$(cd "${WORK}" && ls lib/*.jar | LC_ALL=C sort | tr '\n' ':')
+FAST_OPTS="-Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup"
+
+echo "Training run for the CDS archive"
+(cd "${WORK}" && java -XX:ArchiveClassesAtExit=application.jsa -Dspring.context.exit=onRefresh ${FAST_OPTS} \
+    -cp "${CLASS_PATH}" "${MAIN_CLASS}" ${APP_ARGS} > training.log 2>&1)
+
+# prints the milliseconds from launch to the first 200 response, then stops the instance
+measure() {
+    local start pid elapsed
+    start=$(date +%s%N)
+    (cd "${WORK}" && exec "$@" > "${WORK}/run.log" 2>&1) &
+    pid=$!
+    until curl -sf -o /dev/null "${URL}"; do
+        if ! kill -0 "${pid}" 2>/dev/null; then
+            echo "Instance exited before answering, see ${WORK}/run.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    echo "${elapsed}"
+}
+
+echo "configuration,run,ms" > "${WORK}/results.csv"
+for configuration in default aot aot-cds; do
+    times=()
+    for run in $(seq 1 "${RUNS}"); do
+        case "${configuration}" in
+            default) ms=$(measure java -jar "${JAR}" ${APP_ARGS}) ;;
+            aot)     ms=$(measure java ${FAST_OPTS} -cp "${CLASS_PATH}" "${MAIN_CLASS}" ${APP_ARGS}) ;;
+            aot-cds) ms=$(measure java -XX:SharedArchiveFile=application.jsa ${FAST_OPTS} -cp "${CLASS_PATH}" "${MAIN_CLASS}" ${APP_ARGS}) ;;
+        esac
+        times+=("${ms}")
+        echo "${configuration},${run},${ms}" >> "${WORK}/results.csv"
+    done
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-8s median %6d ms   min %6d ms   max %6d ms\n' "${configuration}" \
+        "${sorted[$(( ${#sorted[@]} / 2 ))]}" "${sorted[0]}" "${sorted[-1]}"
+done
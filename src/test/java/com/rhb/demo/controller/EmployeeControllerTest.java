@@ -1,8 +1,13 @@
 package com.rhb.demo.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.dto.EmployeePatch;
 import com.rhb.demo.entity.Department;
 import com.rhb.demo.entity.Employee;
+import com.rhb.demo.exception.GroupCommitTimeoutException;
+import com.rhb.demo.exception.PreconditionFailedException;
+import com.rhb.demo.service.EmployeeGroupCommitWriter;
+import com.rhb.demo.service.EmployeeImportService;
 import com.rhb.demo.service.EmployeeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,13 +17,22 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +49,12 @@ class EmployeeControllerTest {
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeImportService employeeImportService;
+
+    @MockBean
+    private EmployeeGroupCommitWriter employeeGroupCommitWriter;
+
     private Employee employee;
     private Department department;
 
@@ -66,6 +86,31 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$[0].lastName").value("Doe"));
     }
 
+    @Test
+    void testStreamAllEmployees() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            consumer.accept(employee);
+            consumer.accept(employee);
+            return null;
+        }).when(employeeService).streamAllEmployees(any());
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/employees").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("John", objectMapper.readTree(lines[1]).get("firstName").asText());
+    }
+
     @Test
     void testGetEmployeeById() throws Exception {
         // Arrange
@@ -78,6 +123,34 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.email").value("john.doe@example.com"));
     }
 
+    @Test
+    void testGetEmployeeById_NotModified() throws Exception {
+        // Arrange
+        when(employeeService.getEmployeeETag(1L)).thenReturn("\"v-employee-1-0\"");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/employees/1").header(HttpHeaders.IF_NONE_MATCH, "\"v-employee-1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v-employee-1-0\""))
+                .andExpect(content().string(""));
+        verify(employeeService, never()).getEmployeeById(any());
+    }
+
+    @Test
+    void testGetEmployeesWithDepartment_ReturnsETag() throws Exception {
+        // Arrange
+        when(employeeService.getEmployeesWithDepartmentETag()).thenReturn("\"v-projection-7\"");
+        when(employeeService.getEmployeesWithDepartment()).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/employees/withDepartment"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v-projection-7\""));
+        mockMvc.perform(get("/api/employees/withDepartment").header(HttpHeaders.IF_NONE_MATCH, "\"v-projection-7\""))
+                .andExpect(status().isNotModified());
+        verify(employeeService, times(1)).getEmployeesWithDepartment();
+    }
+
     @Test
     void testCreateEmployee() throws Exception {
         // Arrange
@@ -91,19 +164,90 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.firstName").value("John"));
     }
 
+    @Test
+    void testCreateEmployee_GroupCommitEnabled() throws Exception {
+        // Arrange
+        when(employeeGroupCommitWriter.isEnabled()).thenReturn(true);
+        when(employeeGroupCommitWriter.create(any(Employee.class))).thenReturn(employee);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1));
+        verify(employeeService, never()).createEmployee(any(Employee.class));
+    }
+
+    @Test
+    void testCreateEmployee_GroupCommitTimeout() throws Exception {
+        // Arrange
+        when(employeeGroupCommitWriter.isEnabled()).thenReturn(true);
+        when(employeeGroupCommitWriter.create(any(Employee.class)))
+                .thenThrow(new GroupCommitTimeoutException("Employee create timed out after 10000 ms in the group commit queue, the employee may have been created"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
     @Test
     void testUpdateEmployee() throws Exception {
         // Arrange
-        when(employeeService.updateEmployee(eq(1L), any(Employee.class))).thenReturn(employee);
+        when(employeeService.updateEmployee(eq(1L), any(Employee.class), isNull())).thenReturn(employee);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/employees/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("John"));
+    }
+
+    @Test
+    void testUpdateEmployee_PreconditionFailed() throws Exception {
+        // Arrange
+        when(employeeService.updateEmployee(eq(1L), any(Employee.class), eq("\"stale\""))).thenThrow(new PreconditionFailedException("Employee 1 has been modified"));
 
         // Act & Assert
         mockMvc.perform(put("/api/employees/1")
+                        .header(HttpHeaders.IF_MATCH, "\"stale\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testPatchEmployee() throws Exception {
+        // Arrange
+        when(employeeService.patchEmployee(eq(1L), eq(new EmployeePatch(null, "Smith", null, 2L)), isNull())).thenReturn(employee);
+        when(employeeService.getETag(employee)).thenReturn("\"employee-1-1\"");
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/employees/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Smith\",\"department\":{\"id\":2}}"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"employee-1-1\""))
                 .andExpect(jsonPath("$.firstName").value("John"));
     }
 
+    @Test
+    void testPatchEmployee_PreconditionFailed() throws Exception {
+        // Arrange
+        when(employeeService.patchEmployee(eq(1L), any(EmployeePatch.class), eq("\"stale\""))).thenThrow(new PreconditionFailedException("Employee 1 has been modified"));
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/employees/1")
+                        .header(HttpHeaders.IF_MATCH, "\"stale\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Smith\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void testDeleteEmployee() throws Exception {
         // Act & Assert
@@ -128,5 +272,48 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.employees[0].firstName").value("John"))
                 .andExpect(jsonPath("$.totalItems").value(1));
     }
-}
 
+    @Test
+    void testSearchEmployeesWithoutTotal() throws Exception {
+        // Arrange
+        List<Employee> employees = Arrays.asList(employee);
+        when(employeeService.searchEmployeesSlice(anyString(), any())).thenReturn(new SliceImpl<>(employees, PageRequest.of(0, 1), true));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/employees/search")
+                        .param("keyword", "John")
+                        .param("size", "1")
+                        .param("includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees[0].firstName").value("John"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalItems").doesNotExist());
+    }
+
+    @Test
+    void testSearchEmployeesWithCursor() throws Exception {
+        // Arrange
+        List<Employee> employees = Arrays.asList(employee);
+        when(employeeService.searchEmployeesAfter(anyString(), any(), any(), anyInt())).thenReturn(new SliceImpl<>(employees, PageRequest.of(0, 1), true));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/employees/search")
+                        .param("keyword", "John")
+                        .param("size", "1")
+                        .param("sortBy", "firstName")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees[0].firstName").value("John"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andExpect(jsonPath("$.totalItems").doesNotExist());
+    }
+
+    @Test
+    void testSearchEmployeesWithInvalidCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/employees/search")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
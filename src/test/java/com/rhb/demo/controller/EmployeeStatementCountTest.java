@@ -0,0 +1,200 @@
+package com.rhb.demo.controller;
+
+import com.rhb.demo.dto.DepartmentPatch;
+import com.rhb.demo.dto.EmployeePatch;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.service.DepartmentService;
+import com.rhb.demo.service.EmployeeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statementcount",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class EmployeeStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testEmployeeLists_StatementCountDoesNotGrowWithRows() throws Exception {
+
+        MockHttpServletRequestBuilder[] requests = {
+                get("/api/employees"),
+                get("/api/employees/search").param("size", "100"),
+                get("/api/employees/search").param("size", "5").param("includeTotal", "false"),
+                get("/api/employees/search").param("keyword", "example").param("size", "100"),
+                get("/api/employees/search").param("after", "").param("size", "100")
+        };
+
+        long[] before = new long[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            before[i] = statementsFor(requests[i]);
+        }
+
+        // every new employee gets its own department, so a lazy load per row would show up as extra statements
+        for (int i = 0; i < 20; i++) {
+            Department department = departmentService.createDepartment(new Department(null, "Statement Count " + i, "Location " + i));
+            Employee employee = new Employee(null, "Count" + i, "Check" + i, "count" + i + "@example.com", department);
+            employeeService.createEmployee(employee);
+        }
+
+        for (int i = 0; i < requests.length; i++) {
+            assertEquals(before[i], statementsFor(requests[i]), "statements for request " + i);
+        }
+    }
+
+    @Test
+    void testProjectedLists_RunNoStatements() throws Exception {
+
+        assertEquals(0, statementsFor(get("/api/employees/withDepartment")));
+        assertEquals(0, statementsFor(get("/api/employees/byLocation/{location}", "Chicago")));
+        assertEquals(0, statementsFor(get("/api/departments/headcount")));
+        assertEquals(0, statementsFor(get("/api/departments/headcount/byLocation")));
+    }
+
+    @Test
+    void testHeadcounts_MatchDatabaseAfterWrites() throws Exception {
+
+        Department department = departmentService.createDepartment(new Department(null, "Headcount", "Headcount Site"));
+        Employee employee = employeeService.createEmployee(new Employee(null, "Head", "Count", "headcount@example.com", department));
+        employeeService.patchEmployee(employee.getId(), new EmployeePatch(null, null, null, 2L));
+        departmentService.patchDepartment(2L, new DepartmentPatch(null, "Headcount Site"));
+
+        assertEquals(departmentRepository.countHeadcountByDepartment(), departmentService.getHeadcountByDepartment());
+        assertEquals(departmentRepository.countHeadcountByLocation(), departmentService.getHeadcountByLocation());
+    }
+
+    @Test
+    void testPatch_RunsOneStatementAndOutboxInsert() throws Exception {
+
+        // the second statement is the change feed outbox insert
+        assertEquals(2, statementsFor(patch("/api/employees/{id}", 3).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\":\"Patched\",\"department\":{\"id\":1}}")));
+        assertEquals(2, statementsFor(patch("/api/departments/{id}", 4).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"location\":\"Denver\"}")));
+
+        Employee patched = employeeService.getEmployeeById(3L);
+        assertEquals("Bob", patched.getFirstName());
+        assertEquals("Patched", patched.getLastName());
+        assertEquals(1L, patched.getDepartment().getId());
+        assertEquals("Denver", departmentService.getDepartmentById(4L).getLocation());
+
+        statistics.clear();
+        mockMvc.perform(patch("/api/employees/{id}", 999).contentType(MediaType.APPLICATION_JSON).content("{\"lastName\":\"Missing\"}"))
+                .andExpect(status().isNotFound());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testPatch_EmailOfAnotherEmployeeIsBadRequest() throws Exception {
+
+        mockMvc.perform(patch("/api/employees/{id}", 5).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"diana.davis@example.com\"}"))
+                .andExpect(status().isBadRequest());
+        assertEquals("charlie.brown@example.com", employeeService.getEmployeeById(5L).getEmail());
+    }
+
+    @Test
+    void testPatch_IfMatchIsCheckedInTheUpdate() throws Exception {
+
+        String etag = employeeService.getEmployeeETag(6L);
+        assertEquals(2, statementsFor(patch("/api/employees/{id}", 6).header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"lastName\":\"Matched\"}")));
+
+        mockMvc.perform(patch("/api/employees/{id}", 6).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"lastName\":\"Stale\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/employees/{id}", 999).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"lastName\":\"Missing\"}"))
+                .andExpect(status().isNotFound());
+        assertEquals("Matched", employeeService.getEmployeeById(6L).getLastName());
+
+        String departmentTag = departmentService.getETag(departmentService.getDepartmentById(3L));
+        mockMvc.perform(patch("/api/departments/{id}", 3).header(HttpHeaders.IF_MATCH, departmentTag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Matched\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/departments/{id}", 3).header(HttpHeaders.IF_MATCH, departmentTag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Stale\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Matched", departmentService.getDepartmentById(3L).getName());
+    }
+
+    @Test
+    void testBulkMutations_RunOneStatementAndOutboxInsertEach() throws Exception {
+
+        Department from = departmentService.createDepartment(new Department(null, "Bulk From", "Bulk Site A"));
+        Department to = departmentService.createDepartment(new Department(null, "Bulk To", "Bulk Site B"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(employeeService.createEmployee(new Employee(null, "Bulk" + i, "Move", "bulk" + i + "@example.com", from)).getId());
+        }
+
+        // the outbox rows of all changed employees go in one batched insert
+        assertEquals(2, statementsFor(post("/api/employees/reassign")
+                .param("fromDepartmentId", from.getId().toString()).param("toDepartmentId", to.getId().toString())));
+        assertEquals(5, employeeService.getEmployeesByLocation("Bulk Site B").size());
+        assertEquals(to.getId(), employeeService.getEmployeeById(ids.get(0)).getDepartment().getId());
+
+        assertEquals(2, statementsFor(post("/api/departments/relocate").param("from", "Bulk Site B").param("to", "Bulk Site C")));
+        assertEquals(5, employeeService.getEmployeesByLocation("Bulk Site C").size());
+        assertEquals("Bulk Site C", departmentService.getDepartmentById(to.getId()).getLocation());
+
+        ids.add(999_999L);
+        assertEquals(2, statementsFor(post("/api/employees/bulk-delete").contentType(MediaType.APPLICATION_JSON)
+                .content(ids.toString())));
+        assertTrue(employeeService.getEmployeesByLocation("Bulk Site C").isEmpty());
+        assertEquals(0, employeeService.searchEmployees("bulk", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
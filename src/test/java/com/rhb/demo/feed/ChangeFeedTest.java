@@ -0,0 +1,171 @@
+package com.rhb.demo.feed;
+
+import com.rhb.demo.dto.ChangeEvent;
+import com.rhb.demo.dto.EmployeePatch;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.event.ChangeType;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.exception.ChangesExpiredException;
+import com.rhb.demo.repository.ChangeRecordRepository;
+import com.rhb.demo.service.DepartmentService;
+import com.rhb.demo.service.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:changefeed",
+        "spring.jpa.show-sql=false",
+        "app.changes.ring-size=3"
+})
+class ChangeFeedTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testSince_ReturnsCommittedChangesInOrderFromRingAndOutbox() {
+
+        long start = changeFeed.getLastSeq();
+        long outboxRows = changeRecordRepository.count();
+        Department department = departmentService.createDepartment(new Department(null, "Feed", "Feed Site"));
+        Employee employee = employeeService.createEmployee(new Employee(null, "Fee", "Der", "fee.der@example.com", department));
+        employeeService.patchEmployee(employee.getId(), new EmployeePatch(null, "Patched", null, null));
+        employeeService.deleteEmployee(employee.getId());
+
+        // the ring holds the last three, the first change comes from the outbox
+        List<ChangeEvent> events = changeFeed.since(start, 100);
+
+        assertEquals(outboxRows + 4, changeRecordRepository.count());
+        assertEquals(List.of(start + 1, start + 2, start + 3, start + 4), events.stream().map(ChangeEvent::getSeq).toList());
+        assertEquals(List.of("department", "employee", "employee", "employee"), events.stream().map(ChangeEvent::getEntity).toList());
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED),
+                events.stream().map(ChangeEvent::getType).toList());
+        assertEquals(department.getId(), events.get(0).getId());
+        assertTrue(events.get(2).getData().contains("\"lastName\":\"Patched\""));
+        assertNull(events.get(3).getData());
+        assertEquals(events.subList(2, 4), changeFeed.since(start + 2, 100));
+        assertEquals(events.subList(1, 2), changeFeed.since(start + 1, 1));
+    }
+
+    @Test
+    void testRolledBackChange_IsNotPublished() {
+
+        long start = changeFeed.getLastSeq();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            departmentService.createDepartment(new Department(null, "Rolled Back", "Nowhere"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(start, changeFeed.getLastSeq());
+        assertTrue(changeFeed.since(start, 100).isEmpty());
+    }
+
+    @Test
+    void testSlowAfterCommitListener_DoesNotHoldUpOtherWriters() throws Exception {
+
+        long start = changeFeed.getLastSeq();
+        CompletableFuture<Department> slow = CompletableFuture.supplyAsync(
+                () -> departmentService.createDepartment(new Department(null, SlowListener.DEPARTMENT, "Slow Site")));
+        assertTrue(SlowListener.entered.await(10, TimeUnit.SECONDS));
+
+        try {
+            CompletableFuture.supplyAsync(() -> departmentService.createDepartment(new Department(null, "Fast", "Fast Site")))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(start + 2, changeFeed.getLastSeq());
+        } finally {
+            SlowListener.release.countDown();
+        }
+        slow.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testSince_RejectsSeqNotIssued() {
+
+        assertThrows(ChangesExpiredException.class, () -> changeFeed.since(changeFeed.getLastSeq() + 5, 100));
+        assertThrows(ChangesExpiredException.class, () -> changeFeed.since(-1, 100));
+    }
+
+    @Test
+    void testStream_SendsChangesAsServerSentEvents() throws Exception {
+
+        long start = changeFeed.getLastSeq();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/changes/stream?since=" + start)).build();
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+
+        departmentService.createDepartment(new Department(null, "Streamed", "Stream Site"));
+
+        // skips heartbeat comments
+        List<String> lines = CompletableFuture.supplyAsync(() -> response.body()
+                        .filter(line -> !line.startsWith(":"))
+                        .dropWhile(String::isEmpty)
+                        .takeWhile(line -> !line.isEmpty())
+                        .toList())
+                .get(10, TimeUnit.SECONDS);
+        assertEquals("id:" + (start + 1), lines.get(0));
+        assertEquals("event:department", lines.get(1));
+        assertTrue(lines.get(2).startsWith("data:{\"seq\":" + (start + 1) + ",\"entity\":\"department\",\"type\":\"CREATED\""), lines.get(2));
+        assertTrue(lines.get(2).contains("\"data\":{\"id\":"), lines.get(2));
+        response.body().close();
+    }
+
+    @TestConfiguration
+    static class SlowListenerConfiguration {
+
+        @Bean
+        SlowListener slowListener() {
+            return new SlowListener();
+        }
+    }
+
+    static class SlowListener {
+
+        static final String DEPARTMENT = "Slow Listener";
+        static final CountDownLatch entered = new CountDownLatch(1);
+        static final CountDownLatch release = new CountDownLatch(1);
+
+        @TransactionalEventListener
+        public void onDepartmentChanged(DepartmentChangedEvent event) throws InterruptedException {
+            if (event.getDepartment() != null && DEPARTMENT.equals(event.getDepartment().getName())) {
+                entered.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+}
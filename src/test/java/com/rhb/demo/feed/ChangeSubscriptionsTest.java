@@ -0,0 +1,101 @@
+package com.rhb.demo.feed;
+
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.service.DepartmentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:changesubscriptions",
+        "spring.jpa.show-sql=false",
+        "app.changes.stream.threads=1",
+        "app.changes.stream.send-timeout=1s",
+        "app.changes.stream.heartbeat=1h"
+})
+class ChangeSubscriptionsTest {
+
+    private static final int CHANGES = 400;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ChangeSubscriptions changeSubscriptions;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Test
+    void testClientThatNeverReads_DoesNotStallOtherSubscribers() throws Exception {
+
+        long start = changeFeed.getLastSeq();
+        long last = start + CHANGES;
+        String name = "Stalled ".repeat(25);
+        try (Socket stalled = new Socket()) {
+            // small buffers on both ends fill after a few dozen events
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = stalled.getOutputStream();
+            out.write(("GET /api/changes/stream?since=" + start + " HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/changes/stream?since=" + start)).build();
+            HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines());
+            CompletableFuture<Boolean> receivedAll = CompletableFuture.supplyAsync(() -> response.body()
+                    .anyMatch(line -> line.equals("id:" + last)));
+
+            for (int i = 0; i < CHANGES; i++) {
+                departmentService.createDepartment(new Department(null, name + i, "Stall Site"));
+            }
+
+            // with one sender thread, the healthy stream only gets through if the stalled one is set aside
+            assertTrue(receivedAll.get(30, TimeUnit.SECONDS));
+            Map<String, Object> stats = changeSubscriptions.stats();
+            assertEquals(1L, stats.get("stalled"));
+            assertEquals(2, stats.get("senderThreads"));
+            response.body().close();
+        }
+
+        // the blocked write fails once the socket is gone, which returns the extra thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline && !changeSubscriptions.stats().get("senderThreads").equals(1)) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, changeSubscriptions.stats().get("senderThreads"));
+        assertEquals(0L, changeSubscriptions.stats().get("stalled"));
+    }
+
+    @TestConfiguration
+    static class SmallSendBuffer {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSendBuffer() {
+            return factory -> factory.addConnectorCustomizers(connector -> connector.setProperty("socket.txBufSize", "4096"));
+        }
+    }
+}
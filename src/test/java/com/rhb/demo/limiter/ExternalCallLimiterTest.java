@@ -0,0 +1,130 @@
+package com.rhb.demo.limiter;
+
+import com.rhb.demo.exception.ExternalCallRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalCallLimiterTest {
+
+    private static final String URL = "http://remote.example.com/health";
+
+    @Test
+    void testAcquire_RejectsImmediatelyAtLimit() {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(true, 2, 1, 10, 1.5, 0.2, 5, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+
+        ExternalCallLimiter.Permit first = limiter.acquire(URL);
+        limiter.acquire(URL);
+        assertThrows(ExternalCallRejectedException.class, () -> limiter.acquire(URL));
+
+        first.onSuccess(1_000_000);
+        assertNotNull(limiter.acquire(URL));
+        assertEquals(1L, host(limiter).get("rejected"));
+    }
+
+    @Test
+    void testLimit_ShrinksWhenLatencyRises() {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(true, 20, 1, 50, 1.5, 0.2, 100, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+
+        runSaturated(limiter, 20, 200, 10_000_000);
+        int steadyLimit = (int) host(limiter).get("limit");
+        runSaturated(limiter, steadyLimit, 3, 100_000_000);
+
+        assertTrue((int) host(limiter).get("limit") < steadyLimit / 2,
+                "limit should back off from " + steadyLimit + " but was " + host(limiter).get("limit"));
+    }
+
+    @Test
+    void testLimit_GrowsWhileLatencyIsStable() {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(true, 4, 1, 50, 1.5, 0.2, 100, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+
+        runSaturated(limiter, 4, 200, 10_000_000);
+
+        assertTrue((int) host(limiter).get("limit") > 4);
+    }
+
+    @Test
+    void testCircuit_OpensAfterFailuresAndClosesAfterTrial() throws InterruptedException {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(true, 10, 1, 10, 1.5, 0.2, 3, Duration.ofMillis(100), 10_000, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(URL).onFailure();
+        }
+        assertEquals(ExternalCallLimiter.CircuitState.OPEN, host(limiter).get("circuit"));
+        assertThrows(ExternalCallRejectedException.class, () -> limiter.acquire(URL));
+
+        Thread.sleep(150);
+        ExternalCallLimiter.Permit trial = limiter.acquire(URL);
+        assertEquals(ExternalCallLimiter.CircuitState.HALF_OPEN, host(limiter).get("circuit"));
+        assertThrows(ExternalCallRejectedException.class, () -> limiter.acquire(URL));
+
+        trial.onSuccess(1_000_000);
+        assertEquals(ExternalCallLimiter.CircuitState.CLOSED, host(limiter).get("circuit"));
+        assertNotNull(limiter.acquire(URL));
+    }
+
+    @Test
+    void testAcquire_DefaultPortIsTheSameHost() {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(true, 2, 1, 10, 1.5, 0.2, 5, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+
+        limiter.acquire("http://remote.example.com/a");
+        limiter.acquire("http://REMOTE.example.com:80/b");
+        assertThrows(ExternalCallRejectedException.class, () -> limiter.acquire(URL));
+
+        assertEquals(1, ((List<?>) limiter.getState().get("hosts")).size());
+        assertEquals(2, host(limiter).get("inFlight"));
+    }
+
+    @Test
+    void testHosts_IdleStatesAreDropped() throws InterruptedException {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(true, 2, 1, 10, 1.5, 0.2, 5, Duration.ofSeconds(30), 10_000, Duration.ofMillis(100));
+
+        limiter.acquire(URL).onSuccess(1_000_000);
+        assertEquals(1, ((List<?>) limiter.getState().get("hosts")).size());
+
+        Thread.sleep(150);
+        assertTrue(((List<?>) limiter.getState().get("hosts")).isEmpty());
+    }
+
+    @Test
+    void testAcquire_DisabledNeverRejects() {
+
+        ExternalCallLimiter limiter = new ExternalCallLimiter(false, 1, 1, 1, 1.5, 0.2, 1, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(URL).onFailure();
+        }
+        assertTrue(((List<?>) limiter.getState().get("hosts")).isEmpty());
+    }
+
+    private static void runSaturated(ExternalCallLimiter limiter, int concurrency, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            List<ExternalCallLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                try {
+                    permits.add(limiter.acquire(URL));
+                } catch (ExternalCallRejectedException e) {
+                    break;
+                }
+            }
+            permits.forEach(permit -> permit.onSuccess(rttNanos));
+            concurrency = Math.max(concurrency, (int) host(limiter).get("limit"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> host(ExternalCallLimiter limiter) {
+        return ((List<Map<String, Object>>) limiter.getState().get("hosts")).get(0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.rhb.demo.metrics;
+
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.service.EmployeeService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyMetricsTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReset_ReportsOverloadsSeparately() throws NoSuchMethodException {
+
+        LatencyMetrics latencyMetrics = new LatencyMetrics();
+        Method twoArgs = EmployeeService.class.getMethod("updateEmployee", Long.class, Employee.class);
+        Method threeArgs = EmployeeService.class.getMethod("updateEmployee", Long.class, Employee.class, String.class);
+        latencyMetrics.record(twoArgs, "service", 1_000_000, false);
+        latencyMetrics.record(threeArgs, "service", 2_000_000, true);
+        latencyMetrics.record(threeArgs, "service", 2_000_000, false);
+
+        List<Map<String, Object>> methods = (List<Map<String, Object>>) latencyMetrics.reset().get("methods");
+
+        assertEquals(2, methods.size());
+        Map<String, Object> first = methods.get(0);
+        Map<String, Object> second = methods.get(1);
+        assertEquals("EmployeeService.updateEmployee(Long,Employee)", first.get("name"));
+        assertEquals(1L, first.get("count"));
+        assertEquals(0L, first.get("errors"));
+        assertEquals("EmployeeService.updateEmployee(Long,Employee,String)", second.get("name"));
+        assertEquals(2L, second.get("count"));
+        assertEquals(1L, second.get("errors"));
+
+        List<Map<String, Object>> afterReset = (List<Map<String, Object>>) latencyMetrics.snapshot().get("methods");
+        assertEquals(0L, afterReset.get(0).get("count"));
+        assertEquals(0L, afterReset.get(1).get("count"));
+    }
+}
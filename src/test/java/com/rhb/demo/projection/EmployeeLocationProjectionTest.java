@@ -0,0 +1,127 @@
+package com.rhb.demo.projection;
+
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeLocationProjectionTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private DepartmentRepository departmentRepository;
+
+    private EmployeeLocationProjection projection;
+
+    private Department engineering;
+    private Department sales;
+
+    @BeforeEach
+    void setUp() {
+        engineering = new Department(1L, "Engineering", "San Francisco");
+        sales = new Department(2L, "Sales", "Chicago");
+        projection = new EmployeeLocationProjection(employeeRepository, departmentRepository, true, 2);
+    }
+
+    @Test
+    void testBuild_LoadsRowsInBatches() {
+
+        build(row(1L, "John", engineering), row(2L, "Jane", sales), row(3L, "Bob", engineering));
+
+        assertTrue(projection.isReady());
+        assertEquals(List.of(1L, 3L), ids(projection.findByLocation("San Francisco")));
+        assertEquals(List.of(2L), ids(projection.findByLocation("Chicago")));
+        assertEquals(List.of(1L, 2L, 3L), ids(projection.findAll()));
+        assertTrue(projection.findByLocation("Austin").isEmpty());
+    }
+
+    @Test
+    void testFind_ReturnsNullUntilBuilt() {
+
+        assertNull(projection.findByLocation("Chicago"));
+        assertNull(projection.findAll());
+    }
+
+    @Test
+    void testEmployeeChanges_UpdateLocations() {
+
+        build(row(1L, "John", engineering), row(2L, "Jane", sales));
+        List<EmployeeDepartmentDTO> before = projection.findByLocation("Chicago");
+
+        projection.onEmployeeChanged(EmployeeChangedEvent.updated(new Employee(1L, "John", "Doe", "john@example.com", new Department(2L, null, null))));
+        projection.onEmployeeChanged(EmployeeChangedEvent.created(new Employee(4L, "Ann", "Lee", "ann@example.com", new Department(1L, null, null))));
+        projection.onEmployeeChanged(EmployeeChangedEvent.deleted(2L));
+
+        assertEquals(List.of(2L), ids(before));
+        assertEquals(List.of(1L), ids(projection.findByLocation("Chicago")));
+        assertEquals("Sales", projection.findByLocation("Chicago").get(0).getDepartmentName());
+        assertEquals(List.of(4L), ids(projection.findByLocation("San Francisco")));
+        assertEquals(List.of(1L, 4L), ids(projection.findAll()));
+    }
+
+    @Test
+    void testDepartmentUpdate_MovesItsEmployees() {
+
+        build(row(1L, "John", engineering), row(2L, "Jane", sales));
+        projection.findByLocation("San Francisco");
+
+        projection.onDepartmentChanged(DepartmentChangedEvent.updated(new Department(1L, "Platform", "Austin")));
+
+        assertTrue(projection.findByLocation("San Francisco").isEmpty());
+        EmployeeDepartmentDTO moved = projection.findByLocation("Austin").get(0);
+        assertEquals(1L, moved.getEmployeeId());
+        assertEquals("Platform", moved.getDepartmentName());
+    }
+
+    @Test
+    void testBuild_SkipsEmployeesDeletedWhileBuilding() {
+
+        when(departmentRepository.findAll()).thenReturn(List.of(engineering));
+        when(employeeRepository.findWithDepartmentAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            projection.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+            return List.of(row(1L, "John", engineering));
+        });
+
+        projection.build();
+
+        assertTrue(projection.findAll().isEmpty());
+    }
+
+    private void build(EmployeeDepartmentDTO... rows) {
+        when(departmentRepository.findAll()).thenReturn(List.of(engineering, sales));
+        when(employeeRepository.findWithDepartmentAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int size = invocation.getArgument(1, Pageable.class).getPageSize();
+            return List.of(rows).stream().filter(row -> row.getEmployeeId() > afterId).limit(size).toList();
+        });
+        projection.build();
+    }
+
+    private static EmployeeDepartmentDTO row(Long id, String firstName, Department department) {
+        return new EmployeeDepartmentDTO(id, firstName, "Doe", firstName.toLowerCase() + "@example.com",
+                department.getId(), department.getName(), department.getLocation());
+    }
+
+    private static List<Long> ids(List<EmployeeDepartmentDTO> rows) {
+        return rows.stream().map(EmployeeDepartmentDTO::getEmployeeId).toList();
+    }
+}
@@ -0,0 +1,149 @@
+package com.rhb.demo.projection;
+
+import com.rhb.demo.dto.DepartmentHeadcount;
+import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.dto.LocationHeadcount;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.event.EmployeeChangedEvent;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HeadcountAggregatesTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private DepartmentRepository departmentRepository;
+
+    private HeadcountAggregates aggregates;
+
+    private Department engineering;
+    private Department sales;
+    private Department support;
+    private List<EmployeeDepartmentDTO> rows;
+
+    @BeforeEach
+    void setUp() {
+        engineering = new Department(1L, "Engineering", "San Francisco");
+        sales = new Department(2L, "Sales", "Chicago");
+        support = new Department(3L, "Support", "Chicago");
+        aggregates = new HeadcountAggregates(employeeRepository, departmentRepository, true, Duration.ofMinutes(5), 2);
+        rows = new ArrayList<>(List.of(row(1L, engineering), row(2L, sales), row(3L, engineering)));
+    }
+
+    @Test
+    void testReconcile_CountsEveryDepartmentAndLocation() {
+
+        reconcile();
+
+        assertEquals(List.of(headcount(engineering, 2), headcount(sales, 1), headcount(support, 0)), aggregates.byDepartment());
+        assertEquals(List.of(new LocationHeadcount("Chicago", 1), new LocationHeadcount("San Francisco", 2)), aggregates.byLocation());
+    }
+
+    @Test
+    void testFind_ReturnsNullUntilReconciled() {
+
+        assertNull(aggregates.byDepartment());
+        assertNull(aggregates.byLocation());
+    }
+
+    @Test
+    void testEmployeeChanges_AdjustCounters() {
+
+        reconcile();
+        List<DepartmentHeadcount> before = aggregates.byDepartment();
+
+        aggregates.onEmployeeChanged(EmployeeChangedEvent.updated(employee(1L, support)));
+        aggregates.onEmployeeChanged(EmployeeChangedEvent.created(employee(4L, sales)));
+        aggregates.onEmployeeChanged(EmployeeChangedEvent.deleted(3L));
+        aggregates.onEmployeeChanged(EmployeeChangedEvent.updated(employee(2L, sales)));
+
+        assertEquals(headcount(engineering, 2), before.get(0));
+        assertEquals(List.of(headcount(engineering, 0), headcount(sales, 2), headcount(support, 1)), aggregates.byDepartment());
+        assertEquals(List.of(new LocationHeadcount("Chicago", 3), new LocationHeadcount("San Francisco", 0)), aggregates.byLocation());
+    }
+
+    @Test
+    void testDepartmentRelocation_MovesItsHeadcount() {
+
+        reconcile();
+
+        aggregates.onDepartmentChanged(DepartmentChangedEvent.updated(new Department(1L, "Engineering", "Chicago")));
+
+        assertEquals(List.of(new LocationHeadcount("Chicago", 3)), aggregates.byLocation());
+        assertEquals("Chicago", aggregates.byDepartment().get(0).getLocation());
+    }
+
+    @Test
+    void testReconcile_CorrectsDrift() {
+
+        reconcile();
+        rows.add(row(9L, sales));
+
+        aggregates.reconcile();
+
+        assertEquals(2, aggregates.byDepartment().get(1).getHeadcount());
+    }
+
+    @Test
+    void testReconcile_ReplaysChangesThatArriveWhileLoading() {
+
+        reconcile();
+        when(employeeRepository.findWithDepartmentAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            // 4 is created after the load read its page, 1 is moved before: the load already sees it in support
+            aggregates.onEmployeeChanged(EmployeeChangedEvent.created(employee(4L, sales)));
+            aggregates.onEmployeeChanged(EmployeeChangedEvent.updated(employee(1L, support)));
+            aggregates.onDepartmentChanged(DepartmentChangedEvent.updated(new Department(3L, "Support", "Austin")));
+            return List.of(row(1L, support), row(2L, sales), row(3L, engineering));
+        });
+
+        aggregates.reconcile();
+
+        assertEquals(List.of(headcount(engineering, 1), headcount(sales, 2), new DepartmentHeadcount(3L, "Support", "Austin", 1)),
+                aggregates.byDepartment());
+        assertEquals(List.of(new LocationHeadcount("Austin", 1), new LocationHeadcount("Chicago", 2), new LocationHeadcount("San Francisco", 1)),
+                aggregates.byLocation());
+    }
+
+    private void reconcile() {
+        when(departmentRepository.findAll()).thenReturn(List.of(engineering, sales, support));
+        when(employeeRepository.findWithDepartmentAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int size = invocation.getArgument(1, Pageable.class).getPageSize();
+            return rows.stream().filter(row -> row.getEmployeeId() > afterId).limit(size).toList();
+        });
+        aggregates.reconcile();
+    }
+
+    private static EmployeeDepartmentDTO row(Long id, Department department) {
+        return new EmployeeDepartmentDTO(id, "First" + id, "Last" + id, "employee" + id + "@example.com",
+                department.getId(), department.getName(), department.getLocation());
+    }
+
+    private static Employee employee(Long id, Department department) {
+        return new Employee(id, "First" + id, "Last" + id, "employee" + id + "@example.com", department);
+    }
+
+    private static DepartmentHeadcount headcount(Department department, long headcount) {
+        return new DepartmentHeadcount(department.getId(), department.getName(), department.getLocation(), headcount);
+    }
+}
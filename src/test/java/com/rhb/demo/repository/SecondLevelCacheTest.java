@@ -0,0 +1,115 @@
+package com.rhb.demo.repository;
+
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.dto.DepartmentPatch;
+import com.rhb.demo.dto.EmployeePatch;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.exception.ResourceNotFoundException;
+import com.rhb.demo.service.DepartmentService;
+import com.rhb.demo.service.EmployeeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:secondlevelcache",
+        "spring.jpa.show-sql=false"
+})
+class SecondLevelCacheTest {
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private DepartmentCache departmentCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testDepartmentFindById_ServedFromCacheAndEvictedOnPatch() {
+
+        departmentRepository.findById(2L);
+        statistics.clear();
+
+        assertEquals("Marketing", departmentRepository.findById(2L).orElseThrow().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+
+        departmentService.patchDepartment(2L, new DepartmentPatch("Brand", null));
+
+        assertEquals("Brand", departmentRepository.findById(2L).orElseThrow().getName());
+    }
+
+    @Test
+    void testLocationQuery_ServedFromQueryCacheAndInvalidatedByWrites() {
+
+        employeeRepository.findEmployeesByLocation("Chicago");
+        statistics.clear();
+
+        assertEquals(2, employeeRepository.findEmployeesByLocation("Chicago").size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        employeeService.patchEmployee(1L, new EmployeePatch(null, null, null, 3L));
+
+        assertEquals(3, employeeRepository.findEmployeesByLocation("Chicago").size());
+    }
+
+    @Test
+    void testBulkRelocation_EvictsDepartmentsAndCachedQueries() {
+
+        departmentRepository.findById(4L);
+        assertEquals(0, employeeRepository.findEmployeesByLocation("Boston").size());
+
+        departmentService.relocateDepartments("Austin", "Boston");
+
+        assertEquals("Boston", departmentRepository.findById(4L).orElseThrow().getLocation());
+        assertEquals(2, employeeRepository.findEmployeesByLocation("Boston").size());
+        departmentService.relocateDepartments("Boston", "Austin");
+    }
+
+    @Test
+    void testDepartmentDeletedThroughSql_StillCached_IsNotFound() {
+
+        Department ghost = departmentService.createDepartment(new Department(null, "Ghost", "Nowhere"));
+        assertTrue(departmentCache.find(ghost.getId()).isPresent());
+        jdbcTemplate.update("DELETE FROM department WHERE id = ?", ghost.getId());
+
+        assertThrows(ResourceNotFoundException.class, () -> employeeService.createEmployee(
+                new Employee(null, "Ghost", "Writer", "ghost.writer@example.com", new Department(ghost.getId(), null, null))));
+        assertThrows(ResourceNotFoundException.class, () -> employeeService.updateEmployee(2L,
+                new Employee(null, "Jane", "Smith", "jane.smith@example.com", new Department(ghost.getId(), null, null))));
+        assertThrows(ResourceNotFoundException.class, () -> employeeService.patchEmployee(2L, new EmployeePatch(null, null, null, ghost.getId())));
+        assertEquals(1L, employeeService.getEmployeeById(2L).getDepartment().getId());
+    }
+}
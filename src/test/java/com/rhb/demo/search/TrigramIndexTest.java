@@ -0,0 +1,81 @@
+package com.rhb.demo.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(1L, "John", "Doe", "john.doe@example.com");
+        index.put(2L, "Jane", "Smith", "jane.smith@example.com");
+        index.put(3L, "Bob", "Johnson", "bob.johnson@example.com");
+    }
+
+    @Test
+    void testMatchIsCaseInsensitiveSubstring() {
+
+        assertArrayEquals(new long[]{1L, 3L}, ids(index.match("JOHN")));
+        assertArrayEquals(new long[]{2L}, ids(index.match("ith")));
+        assertArrayEquals(new long[0], ids(index.match("xyz")));
+    }
+
+    @Test
+    void testMatchShortKeywordScansAllEntries() {
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, ids(index.match("o")));
+        assertArrayEquals(new long[]{2L}, ids(index.match("sm")));
+    }
+
+    @Test
+    void testMatchDoesNotSpanFields() {
+
+        assertArrayEquals(new long[0], ids(index.match("johndoe")));
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDeletes() {
+
+        index.put(1L, "Jack", "Doe", "jack.doe@example.com");
+        index.remove(3L);
+
+        assertArrayEquals(new long[0], ids(index.match("john")));
+        assertArrayEquals(new long[]{1L}, ids(index.match("jack")));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testCompactKeepsLiveEntries() {
+
+        for (int i = 0; i < 5000; i++) {
+            index.put(2L, "Jane" + i, "Smith", "jane.smith@example.com");
+        }
+        index.compact();
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new long[]{2L}, ids(index.match("jane4999")));
+        assertArrayEquals(new long[]{1L, 3L}, ids(index.match("john")));
+    }
+
+    @Test
+    void testPageSortsAndSlices() {
+
+        Comparator<Integer> byLastNameDesc = index.comparator("lastName").reversed();
+        int[] all = index.match("example");
+
+        assertArrayEquals(new long[]{2L, 3L}, index.page(all, byLastNameDesc, 0, 2));
+        assertArrayEquals(new long[]{1L}, index.page(all, byLastNameDesc, 2, 2));
+        assertArrayEquals(new long[0], index.page(all, byLastNameDesc, 4, 2));
+    }
+
+    private long[] ids(int[] slots) {
+        return index.page(slots, index.comparator("id"), 0, slots.length);
+    }
+}
@@ -1,18 +1,27 @@
 package com.rhb.demo.service;
 
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.cache.ResourceVersions;
+import com.rhb.demo.dto.DepartmentHeadcount;
+import com.rhb.demo.dto.DepartmentPatch;
 import com.rhb.demo.entity.Department;
+import com.rhb.demo.event.DepartmentChangedEvent;
+import com.rhb.demo.exception.PreconditionFailedException;
 import com.rhb.demo.exception.ResourceNotFoundException;
+import com.rhb.demo.projection.HeadcountAggregates;
 import com.rhb.demo.repository.DepartmentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,13 +33,23 @@ class DepartmentServiceTest {
     @Mock
     private DepartmentRepository departmentRepository;
 
-    @InjectMocks
+    @Mock
+    private HeadcountAggregates headcountAggregates;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DepartmentCache departmentCache;
+
     private DepartmentService departmentService;
 
     private Department department;
 
     @BeforeEach
     void setUp() {
+        departmentCache = new DepartmentCache(departmentRepository, 100, Duration.ofMinutes(10));
+        departmentService = new DepartmentService(departmentRepository, departmentCache, headcountAggregates, new ResourceVersions(), eventPublisher);
+
         department = new Department();
         department.setId(1L);
         department.setName("Engineering");
@@ -76,6 +95,62 @@ class DepartmentServiceTest {
         verify(departmentRepository, times(1)).findById(999L);
     }
 
+    @Test
+    void testGetDepartmentById_Cached() {
+
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+
+
+        Department first = departmentService.getDepartmentById(1L);
+        first.setName("Modified by caller");
+        Department second = departmentService.getDepartmentById(1L);
+
+        assertEquals("Engineering", second.getName());
+        assertEquals(1L, departmentCache.getStats().get("hitCount"));
+        verify(departmentRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testDepartmentChangeRefreshesCache() {
+
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        departmentService.getDepartmentById(1L);
+
+        Department renamed = new Department(1L, "Platform", "Seattle");
+        departmentCache.onDepartmentChanged(DepartmentChangedEvent.updated(renamed));
+        assertEquals("Platform", departmentService.getDepartmentById(1L).getName());
+
+        departmentCache.onDepartmentChanged(DepartmentChangedEvent.deleted(1L));
+        when(departmentRepository.findById(1L)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> departmentService.getDepartmentById(1L));
+    }
+
+    @Test
+    void testGetHeadcountByDepartment_FromCounters() {
+
+        List<DepartmentHeadcount> headcounts = List.of(new DepartmentHeadcount(1L, "Engineering", "San Francisco", 3));
+        when(headcountAggregates.byDepartment()).thenReturn(headcounts);
+
+
+        List<DepartmentHeadcount> result = departmentService.getHeadcountByDepartment();
+
+        assertEquals(headcounts, result);
+        verify(departmentRepository, never()).countHeadcountByDepartment();
+    }
+
+    @Test
+    void testGetHeadcountByDepartment_FallsBackToDatabase() {
+
+        List<DepartmentHeadcount> headcounts = List.of(new DepartmentHeadcount(1L, "Engineering", "San Francisco", 3));
+        when(headcountAggregates.byDepartment()).thenReturn(null);
+        when(departmentRepository.countHeadcountByDepartment()).thenReturn(headcounts);
+
+
+        List<DepartmentHeadcount> result = departmentService.getHeadcountByDepartment();
+
+        assertEquals(headcounts, result);
+    }
+
     @Test
     void testCreateDepartment() {
 
@@ -98,14 +173,96 @@ class DepartmentServiceTest {
         updatedDept.setLocation("New York");
 
         when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
-        when(departmentRepository.save(any(Department.class))).thenReturn(updatedDept);
+        when(departmentRepository.saveAndFlush(any(Department.class))).thenReturn(updatedDept);
 
 
         Department result = departmentService.updateDepartment(1L, updatedDept);
 
         assertNotNull(result);
         assertEquals("Marketing", result.getName());
-        verify(departmentRepository, times(1)).save(any(Department.class));
+        verify(departmentRepository, times(1)).saveAndFlush(any(Department.class));
+        verify(eventPublisher, times(1)).publishEvent(any(DepartmentChangedEvent.class));
+    }
+
+    @Test
+    void testPatchDepartment() {
+
+        DepartmentPatch patch = new DepartmentPatch(null, "New York");
+        when(departmentRepository.patchDepartment(1L, patch, null)).thenReturn(Optional.of(new Department(1L, "Engineering", "New York", 1L)));
+
+
+        Department result = departmentService.patchDepartment(1L, patch);
+
+        assertEquals("New York", result.getLocation());
+        verify(departmentRepository, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(any(DepartmentChangedEvent.class));
+    }
+
+    @Test
+    void testPatchDepartment_NotFound() {
+
+        DepartmentPatch patch = new DepartmentPatch("Marketing", null);
+        when(departmentRepository.patchDepartment(999L, patch, null)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> departmentService.patchDepartment(999L, patch));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testPatchDepartment_IfMatch() {
+
+        DepartmentPatch patch = new DepartmentPatch(null, "New York");
+        String currentTag = departmentService.getETag(new Department(1L, "Engineering", "San Francisco", 3L));
+        String staleTag = departmentService.getETag(new Department(1L, "Engineering", "San Francisco", 2L));
+        when(departmentRepository.patchDepartment(1L, patch, Set.of(3L))).thenReturn(Optional.of(new Department(1L, "Engineering", "New York", 4L)));
+        when(departmentRepository.patchDepartment(1L, patch, Set.of(2L))).thenReturn(Optional.empty());
+        department.setVersion(3L);
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+
+
+        assertEquals(4L, departmentService.patchDepartment(1L, patch, currentTag).getVersion());
+        assertThrows(PreconditionFailedException.class, () -> departmentService.patchDepartment(1L, patch, staleTag));
+        assertThrows(PreconditionFailedException.class, () -> departmentService.patchDepartment(1L, patch, "\"not-a-department-tag\""));
+        verify(departmentRepository, times(2)).patchDepartment(any(), any(), any());
+        verify(eventPublisher, times(1)).publishEvent(any(DepartmentChangedEvent.class));
+    }
+
+    @Test
+    void testRelocateDepartments() {
+
+        when(departmentRepository.relocateDepartments("San Francisco", "Seattle"))
+                .thenReturn(List.of(new Department(1L, "Engineering", "Seattle", 1L), new Department(3L, "Support", "Seattle", 2L)));
+
+
+        int updated = departmentService.relocateDepartments("San Francisco", "Seattle");
+
+        assertEquals(2, updated);
+        verify(eventPublisher, times(2)).publishEvent(any(DepartmentChangedEvent.class));
+    }
+
+    @Test
+    void testUpdateDepartment_IfMatchMismatch() {
+
+        department.setVersion(3L);
+        String staleTag = departmentService.getETag(new Department(1L, "Engineering", "San Francisco", 2L));
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+
+
+        assertThrows(PreconditionFailedException.class, () -> departmentService.updateDepartment(1L, new Department(), staleTag));
+        verify(departmentRepository, never()).saveAndFlush(any(Department.class));
+        assertEquals("Engineering", department.getName());
+    }
+
+    @Test
+    void testDeleteDepartment_IfMatchCurrentVersion() {
+
+        department.setVersion(3L);
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+
+
+        departmentService.deleteDepartment(1L, departmentService.getETag(department));
+
+        verify(departmentRepository, times(1)).delete(department);
     }
 
     @Test
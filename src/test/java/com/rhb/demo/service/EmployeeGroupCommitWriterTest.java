@@ -0,0 +1,127 @@
+package com.rhb.demo.service;
+
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.exception.GroupCommitTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeGroupCommitWriterTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeGroupCommitWriter writer;
+
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    @Test
+    void testSubmit_CommitsConcurrentCreatesInOneBatch() throws Exception {
+
+        writer = writer(true, 3, Duration.ofSeconds(10));
+        assignIdsOnSave();
+
+        List<CompletableFuture<Employee>> futures = List.of(
+                writer.submit(employee("John", "john.doe@example.com")),
+                writer.submit(employee("Jane", "jane.smith@example.com")),
+                writer.submit(employee("Bob", "bob.johnson@example.com")));
+
+        assertEquals(List.of(101L, 102L, 103L), List.of(get(futures.get(0)).getId(), get(futures.get(1)).getId(), get(futures.get(2)).getId()));
+        verify(employeeService, times(1)).createEmployees(anyList());
+        verify(employeeService, never()).createEmployee(any());
+        assertEquals(1L, writer.stats().get("batches"));
+    }
+
+    @Test
+    void testSubmit_RetriesRowsOneAtATimeWhenBatchFails() throws Exception {
+
+        writer = writer(true, 2, Duration.ofSeconds(10));
+        Employee john = employee("John", "john.doe@example.com");
+        Employee jane = employee("Jane", "taken@example.com");
+        when(employeeService.createEmployees(anyList())).thenThrow(new IllegalArgumentException("Duplicate email: taken@example.com"));
+        when(employeeService.createEmployee(john)).thenReturn(john);
+        when(employeeService.createEmployee(jane)).thenThrow(new IllegalArgumentException("Duplicate email: taken@example.com"));
+
+        CompletableFuture<Employee> first = writer.submit(john);
+        CompletableFuture<Employee> second = writer.submit(jane);
+
+        assertSame(john, get(first));
+        assertEquals("Duplicate email: taken@example.com", failure(second).getMessage());
+        assertEquals(1L, writer.stats().get("retriedBatches"));
+    }
+
+    @Test
+    void testCreate_TimeoutIsGroupCommitTimeout() throws Exception {
+
+        writer = writer(true, 1, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        when(employeeService.createEmployees(anyList())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        try {
+            GroupCommitTimeoutException e = assertThrows(GroupCommitTimeoutException.class, () -> writer.create(employee("John", "john.doe@example.com")));
+            assertTrue(e.getMessage().contains("may have been created"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testSubmit_WritesInlineWhenDisabled() throws Exception {
+
+        writer = writer(false, 100, Duration.ofSeconds(10));
+        Employee employee = employee("John", "john.doe@example.com");
+        when(employeeService.createEmployee(employee)).thenReturn(employee);
+
+        assertSame(employee, get(writer.submit(employee)));
+        verify(employeeService, never()).createEmployees(anyList());
+    }
+
+    private EmployeeGroupCommitWriter writer(boolean enabled, int maxBatch, Duration timeout) {
+        // a long delay, so batches are cut by size in these tests
+        return new EmployeeGroupCommitWriter(employeeService, enabled, maxBatch, Duration.ofSeconds(5), 100, timeout);
+    }
+
+    private void assignIdsOnSave() {
+        when(employeeService.createEmployees(anyList())).thenAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            employees.forEach(employee -> employee.setId(ids.incrementAndGet()));
+            return employees;
+        });
+    }
+
+    private static Employee employee(String firstName, String email) {
+        return new Employee(null, firstName, "Doe", email, null);
+    }
+
+    private static Employee get(CompletableFuture<Employee> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(CompletableFuture<Employee> future) {
+        return assertThrows(ExecutionException.class, () -> get(future)).getCause();
+    }
+}
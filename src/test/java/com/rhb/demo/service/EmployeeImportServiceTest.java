@@ -0,0 +1,158 @@
+package com.rhb.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.dto.EmployeeImportResult;
+import com.rhb.demo.entity.Department;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeImportServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private DepartmentRepository departmentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmployeeImportService employeeImportService;
+
+    private Department department;
+
+    @BeforeEach
+    void setUp() {
+        employeeImportService = new EmployeeImportService(employeeRepository, departmentRepository, new DepartmentCache(departmentRepository, 100, Duration.ofMinutes(10)), entityManager, eventPublisher, new ObjectMapper(), transactionManager, 2);
+
+        department = new Department();
+        department.setId(1L);
+        department.setName("Engineering");
+        department.setLocation("San Francisco");
+    }
+
+    @Test
+    void testImportCsvReportsPerRowErrors() throws Exception {
+
+        String csv = "firstName,lastName,email,departmentId\n"
+                + "John,Doe,john.doe@example.com,1\n"
+                + "Jane,Smith,jane.smith@example.com,1\n"
+                + "Bob,Johnson,bob.johnson@example.com,9\n"
+                + "Eve,Miller,jane.smith@example.com,\n"
+                + "\"Brown, Jr\",Charlie,charlie.brown@example.com,abc\n";
+
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        when(departmentRepository.findById(9L)).thenReturn(Optional.empty());
+        when(departmentRepository.getReferenceById(1L)).thenReturn(department);
+        when(employeeRepository.findExistingEmails(anyCollection())).thenReturn(List.of("john.doe@example.com"));
+
+
+        EmployeeImportResult result = employeeImportService.importEmployees(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), MediaType.parseMediaType("text/csv"));
+
+
+        assertEquals(5, result.getTotalRows());
+        assertEquals(1, result.getImported());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(1L, 3L, 4L, 5L), result.getErrors().stream().map(EmployeeImportResult.RowError::getRow).toList());
+        assertEquals("Department not found with id: 9", result.getErrors().get(1).getMessage());
+        verify(employeeRepository, times(1)).saveAll(any());
+        verify(departmentRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testImportJsonArrayInChunks() throws Exception {
+
+        String json = "[{\"firstName\":\"John\",\"lastName\":\"Doe\",\"email\":\"john.doe@example.com\",\"department\":{\"id\":1}},"
+                + "{\"firstName\":\"Jane\",\"lastName\":\"Smith\",\"email\":\"jane.smith@example.com\"},"
+                + "{\"firstName\":\"Bob\",\"lastName\":\"Johnson\",\"email\":\"bob.johnson@example.com\"}]";
+
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        when(departmentRepository.getReferenceById(1L)).thenReturn(department);
+
+
+        EmployeeImportResult result = employeeImportService.importEmployees(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_JSON);
+
+
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getFailed());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Employee>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(employeeRepository, times(2)).saveAll(chunks.capture());
+        assertEquals(2, chunks.getAllValues().get(0).size());
+        assertSame(department, chunks.getAllValues().get(0).get(0).getDepartment());
+        verify(eventPublisher, times(3)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testImportFallsBackToSingleRowsWhenChunkFails() throws Exception {
+
+        String ndjson = "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"email\":\"john.doe@example.com\"}\n"
+                + "{\"firstName\":\"Jane\",\"lastName\":\"Smith\",\"email\":\"jane.smith@example.com\"}\n";
+
+        when(employeeRepository.saveAll(any()))
+                .thenThrow(new IllegalStateException("constraint violated"))
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("Unique index or primary key violation"));
+
+
+        EmployeeImportResult result = employeeImportService.importEmployees(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_NDJSON);
+
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        verify(employeeRepository, times(3)).saveAll(any());
+    }
+
+    @Test
+    void testImportAcceptsEmailOfRowWhoseInsertFailed() throws Exception {
+
+        String ndjson = "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"email\":\"john.doe@example.com\"}\n"
+                + "{\"firstName\":\"Jane\",\"lastName\":\"Smith\",\"email\":\"jane.smith@example.com\"}\n"
+                + "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"email\":\"john.doe@example.com\"}\n";
+
+        when(employeeRepository.saveAll(any()))
+                .thenThrow(new IllegalStateException("value too long"))
+                .thenThrow(new IllegalStateException("value too long"))
+                .thenReturn(List.of());
+
+
+        EmployeeImportResult result = employeeImportService.importEmployees(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_NDJSON);
+
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getErrors().get(0).getRow());
+        verify(employeeRepository, times(4)).saveAll(any());
+    }
+}
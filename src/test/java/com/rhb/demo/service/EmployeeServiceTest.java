@@ -1,28 +1,43 @@
 package com.rhb.demo.service;
 
+import com.rhb.demo.cache.DepartmentCache;
+import com.rhb.demo.cache.EmployeeCountCache;
+import com.rhb.demo.cache.ResourceVersions;
+import com.rhb.demo.dto.EmployeeCursor;
 import com.rhb.demo.dto.EmployeeDepartmentDTO;
+import com.rhb.demo.dto.EmployeePatch;
 import com.rhb.demo.entity.Department;
 import com.rhb.demo.entity.Employee;
+import com.rhb.demo.event.EmployeeChangedEvent;
 import com.rhb.demo.exception.ResourceNotFoundException;
+import com.rhb.demo.projection.EmployeeLocationProjection;
 import com.rhb.demo.repository.DepartmentRepository;
 import com.rhb.demo.repository.EmployeeRepository;
+import com.rhb.demo.search.EmployeeSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,7 +49,17 @@ class EmployeeServiceTest {
     @Mock
     private DepartmentRepository departmentRepository;
 
-    @InjectMocks
+    @Mock
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Mock
+    private EmployeeLocationProjection employeeLocationProjection;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private EmployeeCountCache employeeCountCache;
+
     private EmployeeService employeeService;
 
     private Employee employee;
@@ -42,6 +67,10 @@ class EmployeeServiceTest {
 
     @BeforeEach
     void setUp() {
+        DepartmentCache departmentCache = new DepartmentCache(departmentRepository, 100, Duration.ofMinutes(10));
+        employeeCountCache = new EmployeeCountCache(employeeRepository, Duration.ofMinutes(1), 100, 1);
+        employeeService = new EmployeeService(employeeRepository, departmentCache, employeeSearchIndex, employeeCountCache, employeeLocationProjection, new ResourceVersions(), eventPublisher);
+
         department = new Department();
         department.setId(1L);
         department.setName("Engineering");
@@ -101,7 +130,7 @@ class EmployeeServiceTest {
     void testCreateEmployee() {
 
         when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
-        when(employeeRepository.save(any(Employee.class))).thenReturn(employee);
+        when(employeeRepository.saveAll(List.of(employee))).thenReturn(List.of(employee));
 
 
         Employee result = employeeService.createEmployee(employee);
@@ -109,7 +138,55 @@ class EmployeeServiceTest {
 
         assertNotNull(result);
         assertEquals("John", result.getFirstName());
-        verify(employeeRepository, times(1)).save(any(Employee.class));
+        verify(employeeRepository, times(1)).saveAll(List.of(employee));
+        verify(eventPublisher, times(1)).publishEvent(any(EmployeeChangedEvent.class));
+    }
+
+    @Test
+    void testCreateEmployees_SavesAllInOneCall() {
+
+        Employee jane = new Employee(null, "Jane", "Smith", "jane.smith@example.com", new Department(1L, null, null));
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        when(employeeRepository.saveAll(List.of(employee, jane))).thenReturn(List.of(employee, jane));
+
+        List<Employee> result = employeeService.createEmployees(List.of(employee, jane));
+
+        assertEquals(List.of(employee, jane), result);
+        assertEquals("Engineering", jane.getDepartment().getName());
+        verify(employeeRepository, times(1)).flush();
+        verify(eventPublisher, times(2)).publishEvent(any(EmployeeChangedEvent.class));
+    }
+
+    @Test
+    void testCreateEmployees_RejectsInvalidRows() {
+
+        when(employeeRepository.findExistingEmails(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream().filter("taken@example.com"::equals).toList());
+        when(departmentRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertEquals("firstName, lastName and email are required", assertThrows(IllegalArgumentException.class,
+                () -> employeeService.createEmployee(new Employee(null, null, "Doe", "eve.miller@example.com", null))).getMessage());
+        assertEquals("Duplicate email: john.doe@example.com", assertThrows(IllegalArgumentException.class,
+                () -> employeeService.createEmployees(List.of(employee, new Employee(null, "Johnny", "Doe", "john.doe@example.com", null)))).getMessage());
+        assertEquals("Duplicate email: taken@example.com", assertThrows(IllegalArgumentException.class,
+                () -> employeeService.createEmployee(new Employee(null, "Jane", "Doe", "taken@example.com", null))).getMessage());
+        assertThrows(ResourceNotFoundException.class,
+                () -> employeeService.createEmployee(new Employee(null, "Bob", "Doe", "bob.johnson@example.com", new Department(9L, null, null))));
+        verify(employeeRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any(EmployeeChangedEvent.class));
+    }
+
+    @Test
+    void testCreateEmployee_ConcurrentDuplicateEmailIsBadRequest() {
+
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        when(employeeRepository.saveAll(List.of(employee)))
+                .thenThrow(new DataIntegrityViolationException("insert", new IllegalStateException("Unique index or primary key violation")));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> employeeService.createEmployee(employee));
+
+        assertEquals("Could not create employee: Unique index or primary key violation", e.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(EmployeeChangedEvent.class));
     }
 
     @Test
@@ -118,7 +195,7 @@ class EmployeeServiceTest {
         Employee updatedEmployee = new Employee(1L, "Jane", "Smith", "jane.smith@example.com", department);
         when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
         when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
-        when(employeeRepository.save(any(Employee.class))).thenReturn(updatedEmployee);
+        when(employeeRepository.saveAndFlush(any(Employee.class))).thenReturn(updatedEmployee);
 
 
         Employee result = employeeService.updateEmployee(1L, updatedEmployee);
@@ -127,7 +204,100 @@ class EmployeeServiceTest {
         assertNotNull(result);
         assertEquals("Jane", result.getFirstName());
         assertEquals("Smith", result.getLastName());
-        verify(employeeRepository, times(1)).save(any(Employee.class));
+        verify(employeeRepository, times(1)).saveAndFlush(any(Employee.class));
+    }
+
+    @Test
+    void testPatchEmployee() {
+
+        EmployeePatch patch = new EmployeePatch(null, "Smith", null, 1L);
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        when(employeeRepository.patchEmployee(1L, patch, null))
+                .thenReturn(Optional.of(new Employee(1L, "John", "Smith", "john.doe@example.com", new Department(1L, null, null), 1L)));
+
+
+        Employee result = employeeService.patchEmployee(1L, patch);
+
+
+        assertEquals("Smith", result.getLastName());
+        assertEquals("Engineering", result.getDepartment().getName());
+        verify(employeeRepository, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(any(EmployeeChangedEvent.class));
+    }
+
+    @Test
+    void testPatchEmployee_NotFound() {
+
+        EmployeePatch patch = new EmployeePatch("Jane", null, null, null);
+        when(employeeRepository.patchEmployee(999L, patch, null)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> employeeService.patchEmployee(999L, patch));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testPatchEmployee_Empty() {
+
+        assertThrows(IllegalArgumentException.class, () -> employeeService.patchEmployee(1L, new EmployeePatch()));
+        verify(employeeRepository, never()).patchEmployee(any(), any(), any());
+    }
+
+    @Test
+    void testPatchEmployee_Blank() {
+
+        assertThrows(IllegalArgumentException.class, () -> employeeService.patchEmployee(1L, new EmployeePatch(null, null, "", null)));
+        assertThrows(IllegalArgumentException.class, () -> employeeService.patchEmployee(1L, new EmployeePatch(" ", null, null, null)));
+        verify(employeeRepository, never()).patchEmployee(any(), any(), any());
+    }
+
+    @Test
+    void testPatchEmployee_DuplicateEmail() {
+
+        EmployeePatch patch = new EmployeePatch(null, null, "jane.smith@example.com", null);
+        when(employeeRepository.patchEmployee(1L, patch, null))
+                .thenThrow(new DataIntegrityViolationException("update", new IllegalStateException("Unique index or primary key violation")));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> employeeService.patchEmployee(1L, patch));
+
+        assertEquals("Could not patch employee: Unique index or primary key violation", e.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testDeleteEmployees_PublishesExistingIds() {
+
+        when(employeeRepository.deleteEmployees(List.of(1L, 2L, 999L))).thenReturn(List.of(1L, 2L));
+
+
+        int deleted = employeeService.deleteEmployees(List.of(1L, 2L, 999L));
+
+
+        assertEquals(2, deleted);
+        verify(eventPublisher, times(2)).publishEvent(any(EmployeeChangedEvent.class));
+    }
+
+    @Test
+    void testReassignDepartment() {
+
+        Department target = new Department(2L, "Sales", "Chicago");
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        when(departmentRepository.findById(2L)).thenReturn(Optional.of(target));
+        when(employeeRepository.reassignDepartment(1L, 2L))
+                .thenReturn(List.of(new Employee(1L, "John", "Doe", "john.doe@example.com", new Department(2L, null, null), 1L)));
+
+
+        int updated = employeeService.reassignDepartment(1L, 2L);
+
+
+        assertEquals(1, updated);
+        verify(eventPublisher).publishEvent(argThat((EmployeeChangedEvent event) -> "Chicago".equals(event.getEmployee().getDepartmentLocation())));
+    }
+
+    @Test
+    void testReassignDepartment_SameDepartment() {
+
+        assertThrows(IllegalArgumentException.class, () -> employeeService.reassignDepartment(1L, 1L));
+        verify(employeeRepository, never()).reassignDepartment(any(), any());
     }
 
     @Test
@@ -147,10 +317,9 @@ class EmployeeServiceTest {
     void testSearchEmployees() {
 
         List<Employee> employees = Arrays.asList(employee);
-        Page<Employee> employeePage = new PageImpl<>(employees);
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(employeeRepository.searchEmployees(anyString(), any(Pageable.class))).thenReturn(employeePage);
+        when(employeeRepository.searchEmployees(anyString(), any(Pageable.class))).thenReturn(new SliceImpl<>(employees, pageable, false));
 
 
         Page<Employee> result = employeeService.searchEmployees("John", pageable);
@@ -162,14 +331,85 @@ class EmployeeServiceTest {
         verify(employeeRepository, times(1)).searchEmployees(anyString(), any(Pageable.class));
     }
 
+    @Test
+    void testSearchEmployeesWithMorePagesUsesCachedCount() {
+
+        List<Employee> employees = Arrays.asList(employee);
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(employeeRepository.searchEmployees("%john%", pageable)).thenReturn(new SliceImpl<>(employees, pageable, true));
+        when(employeeRepository.countSearchEmployees("%john%")).thenReturn(25L);
+
+
+        Page<Employee> first = employeeService.searchEmployees("John", pageable);
+        Page<Employee> second = employeeService.searchEmployees("John", pageable);
+
+
+        assertEquals(25, first.getTotalElements());
+        assertEquals(25, second.getTotalElements());
+        verify(employeeRepository, times(1)).countSearchEmployees("%john%");
+    }
+
+    @Test
+    void testSearchEmployeesRecountsAfterEmployeeChange() {
+
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(employeeRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(employee), pageable, true));
+        when(employeeRepository.count()).thenReturn(2L, 3L);
+
+
+        Page<Employee> before = employeeService.searchEmployees(null, pageable);
+        employeeCountCache.onEmployeeChanged(EmployeeChangedEvent.created(employee));
+        Page<Employee> after = employeeService.searchEmployees(null, pageable);
+
+
+        assertEquals(2, before.getTotalElements());
+        assertEquals(3, after.getTotalElements());
+    }
+
+    @Test
+    void testSearchEmployeesSliceSkipsCount() {
+
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(employeeRepository.searchEmployees("%john%", pageable)).thenReturn(new SliceImpl<>(Arrays.asList(employee), pageable, true));
+
+
+        Slice<Employee> result = employeeService.searchEmployeesSlice("John", pageable);
+
+
+        assertTrue(result.hasNext());
+        assertEquals(1, result.getContent().size());
+        verify(employeeRepository, never()).countSearchEmployees(anyString());
+    }
+
+    @Test
+    void testSearchEmployeesFromIndex() {
+
+        Employee second = new Employee(2L, "Jane", "Johnson", "jane.johnson@example.com", department);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        when(employeeSearchIndex.search("John", pageable)).thenReturn(new EmployeeSearchIndex.SearchResult(new long[]{2L, 1L}, 2));
+        when(employeeRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(employee, second));
+
+
+        Page<Employee> result = employeeService.searchEmployees("John", pageable);
+
+
+        assertEquals(2, result.getTotalElements());
+        assertEquals(2L, result.getContent().get(0).getId());
+        assertEquals(1L, result.getContent().get(1).getId());
+        verify(employeeRepository, never()).searchEmployees(anyString(), any(Pageable.class));
+    }
+
     @Test
     void testSearchEmployeesWithNullKeyword() {
 
         List<Employee> employees = Arrays.asList(employee);
-        Page<Employee> employeePage = new PageImpl<>(employees);
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(employeeRepository.findAll(pageable)).thenReturn(employeePage);
+        when(employeeRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(employees, pageable, false));
 
 
         Page<Employee> result = employeeService.searchEmployees(null, pageable);
@@ -177,7 +417,7 @@ class EmployeeServiceTest {
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(employeeRepository, times(1)).findAll(pageable);
+        verify(employeeRepository, times(1)).findAllBy(pageable);
         verify(employeeRepository, times(0)).searchEmployees(anyString(), any(Pageable.class));
     }
 
@@ -187,6 +427,7 @@ class EmployeeServiceTest {
         EmployeeDepartmentDTO dto = new EmployeeDepartmentDTO(1L, "John", "Doe", "john.doe@example.com", 1L, "Engineering", "San Francisco");
         List<EmployeeDepartmentDTO> dtoList = Arrays.asList(dto);
 
+        when(employeeLocationProjection.findAll()).thenReturn(null);
         when(employeeRepository.findAllWithDepartment()).thenReturn(dtoList);
 
 
@@ -206,6 +447,7 @@ class EmployeeServiceTest {
         EmployeeDepartmentDTO dto = new EmployeeDepartmentDTO(1L, "John", "Doe", "john.doe@example.com", 1L, "Engineering", "San Francisco");
         List<EmployeeDepartmentDTO> dtoList = Arrays.asList(dto);
 
+        when(employeeLocationProjection.findByLocation("San Francisco")).thenReturn(null);
         when(employeeRepository.findEmployeesByLocation("San Francisco")).thenReturn(dtoList);
 
 
@@ -217,5 +459,49 @@ class EmployeeServiceTest {
         assertEquals("San Francisco", result.get(0).getDepartmentLocation());
         verify(employeeRepository, times(1)).findEmployeesByLocation("San Francisco");
     }
-}
 
+    @Test
+    void testGetEmployeesByLocationFromProjection() {
+
+        EmployeeDepartmentDTO dto = new EmployeeDepartmentDTO(1L, "John", "Doe", "john.doe@example.com", 1L, "Engineering", "San Francisco");
+
+        when(employeeLocationProjection.findByLocation("San Francisco")).thenReturn(List.of(dto));
+
+
+        List<EmployeeDepartmentDTO> result = employeeService.getEmployeesByLocation("San Francisco");
+
+
+        assertEquals(List.of(dto), result);
+        verify(employeeRepository, never()).findEmployeesByLocation(anyString());
+    }
+
+    @Test
+    void testSearchEmployeesAfterCursor() {
+
+        Employee next = new Employee(2L, "Johnny", "Walker", "johnny.walker@example.com", department);
+        Sort.Order order = Sort.Order.asc("firstName");
+        EmployeeCursor cursor = EmployeeCursor.decode(EmployeeCursor.of(employee, order).encode());
+
+        when(employeeRepository.searchEmployeesAfter("%john%", order, "John", 1L, 2)).thenReturn(Arrays.asList(next));
+
+
+        Slice<Employee> result = employeeService.searchEmployeesAfter("John", order, cursor, 1);
+
+
+        assertEquals(1, result.getNumberOfElements());
+        assertFalse(result.hasNext());
+        assertEquals("Johnny", result.getContent().get(0).getFirstName());
+        verify(employeeRepository, never()).searchEmployees(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchEmployeesAfterCursorWithMismatchedSort() {
+
+        EmployeeCursor cursor = EmployeeCursor.of(employee, Sort.Order.asc("firstName"));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            employeeService.searchEmployeesAfter("John", Sort.Order.desc("firstName"), cursor, 10);
+        });
+        verify(employeeRepository, never()).searchEmployeesAfter(any(), any(), any(), any(), eq(11));
+    }
+}
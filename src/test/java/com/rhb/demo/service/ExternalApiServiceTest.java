@@ -0,0 +1,214 @@
+package com.rhb.demo.service;
+
+import com.rhb.demo.cache.ExternalResponseCache;
+import com.rhb.demo.dto.ExternalCallResult;
+import com.rhb.demo.limiter.ExternalCallLimiter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalApiServiceTest {
+
+    private HttpServer server;
+
+    private String baseUrl;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final List<String> ifNoneMatchHeaders = new ArrayList<>();
+
+    private ExternalApiService externalApiService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/large", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                byte[] chunk = new byte[64 * 1024];
+                for (int i = 0; i < 80; i++) {
+                    out.write(chunk);
+                }
+            }
+        });
+        server.createContext("/stalled", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/max-age", exchange -> {
+            upstreamCalls.incrementAndGet();
+            sleep(100);
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=60");
+            respond(exchange, 200, "cached body");
+        });
+        server.createContext("/etag", exchange -> {
+            upstreamCalls.incrementAndGet();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            synchronized (ifNoneMatchHeaders) {
+                ifNoneMatchHeaders.add(ifNoneMatch);
+            }
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, "versioned body");
+            }
+        });
+        server.createContext("/no-store", exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponseHeaders().set("Cache-Control", "no-store, max-age=60");
+            respond(exchange, 200, "secret");
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        ExternalResponseCache responseCache = new ExternalResponseCache(true, 100, Duration.ofMinutes(10), Duration.ofHours(1));
+        ExternalCallLimiter callLimiter = new ExternalCallLimiter(true, 10, 1, 20, 1.5, 0.2, 5, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+        externalApiService = new ExternalApiService(responseCache, callLimiter, 10, 2, Duration.ofSeconds(1), Duration.ofMillis(300),
+                Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        externalApiService.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testCallExternalApi_CountsStreamedBody() {
+
+        String result = externalApiService.callExternalApi(baseUrl + "/large");
+
+        assertEquals("External API called successfully. Status: 200, Content Length: 5242880 bytes", result);
+    }
+
+    @Test
+    void testCallExternalApi_ReusesPooledConnection() {
+
+        externalApiService.callExternalApi(baseUrl + "/large");
+        externalApiService.callExternalApi(baseUrl + "/large");
+
+        assertEquals(1, clientPorts.size());
+        Map<String, Object> stats = externalApiService.getPoolStats();
+        assertEquals(0, stats.get("leased"));
+        assertEquals(1, stats.get("available"));
+        assertEquals(1, ((List<?>) stats.get("hosts")).size());
+    }
+
+    @Test
+    void testCallExternalApi_ReadTimeout() {
+
+        long start = System.nanoTime();
+        String result = externalApiService.callExternalApi(baseUrl + "/stalled");
+
+        assertTrue(result.startsWith("Error calling external API"), result);
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(1500).toNanos());
+    }
+
+    @Test
+    void testCall_ServesFreshResponseFromCache() {
+
+        externalApiService.call(baseUrl + "/max-age");
+        ExternalCallResult second = externalApiService.call(baseUrl + "/max-age");
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(200, second.getStatus());
+        assertEquals(11L, second.getContentLength());
+        Map<String, Object> stats = externalApiService.getCacheStats();
+        assertEquals(1L, stats.get("hitCount"));
+        assertEquals(1L, stats.get("missCount"));
+        assertEquals(11L, stats.get("savedBytes"));
+    }
+
+    @Test
+    void testCall_RevalidatesWithIfNoneMatch() {
+
+        externalApiService.call(baseUrl + "/etag");
+        ExternalCallResult second = externalApiService.call(baseUrl + "/etag");
+
+        assertEquals(2, upstreamCalls.get());
+        assertNull(ifNoneMatchHeaders.get(0));
+        assertEquals("\"v1\"", ifNoneMatchHeaders.get(1));
+        assertEquals(200, second.getStatus());
+        assertEquals(14L, second.getContentLength());
+        assertEquals(1L, externalApiService.getCacheStats().get("revalidatedCount"));
+    }
+
+    @Test
+    void testCall_DoesNotStoreNoStoreResponses() {
+
+        externalApiService.call(baseUrl + "/no-store");
+        externalApiService.call(baseUrl + "/no-store");
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0L, externalApiService.getCacheStats().get("size"));
+    }
+
+    @Test
+    void testCall_CollapsesConcurrentMisses() throws Exception {
+
+        ExecutorService callers = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                calls.add(callers.submit(() -> externalApiService.call(baseUrl + "/max-age")));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            callers.shutdown();
+        }
+
+        assertEquals(1, upstreamCalls.get());
+        Map<String, Object> stats = externalApiService.getCacheStats();
+        assertEquals(5L, stats.get("requests"));
+        assertEquals(1L, stats.get("missCount"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.rhb.demo.service;
+
+import com.rhb.demo.cache.ExternalResponseCache;
+import com.rhb.demo.dto.ExternalCallResult;
+import com.rhb.demo.limiter.ExternalCallLimiter;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalBatchServiceTest {
+
+    private HttpServer server;
+
+    private String baseUrl;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private ExternalApiService externalApiService;
+
+    private ExternalBatchService externalBatchService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/delay", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(Long.parseLong(exchange.getRequestURI().getQuery()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        ExternalResponseCache responseCache = new ExternalResponseCache(false, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        ExternalCallLimiter callLimiter = new ExternalCallLimiter(false, 10, 1, 20, 1.5, 0.2, 5, Duration.ofSeconds(30), 10_000, Duration.ofMinutes(10));
+        externalApiService = new ExternalApiService(responseCache, callLimiter, 20, 10, Duration.ofSeconds(1), Duration.ofSeconds(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(30));
+        externalBatchService = new ExternalBatchService(externalApiService, 4, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        externalBatchService.shutdown();
+        externalApiService.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testCallAll_StreamsResultsInCompletionOrder() {
+
+        List<ExternalCallResult> results = new ArrayList<>();
+        externalBatchService.callAll(List.of(baseUrl + "/delay?600", baseUrl + "/delay?0"), results::add);
+
+        assertEquals(2, results.size());
+        assertEquals(1, results.get(0).getIndex());
+        assertEquals(0, results.get(1).getIndex());
+        assertEquals(200, results.get(1).getStatus());
+        assertEquals(4L, results.get(1).getContentLength());
+        assertTrue(results.get(1).getLatencyMs() >= 600);
+    }
+
+    @Test
+    void testCallAll_LimitsConcurrencyPerHost() {
+
+        List<String> urls = Collections.nCopies(8, baseUrl + "/delay?100");
+        List<ExternalCallResult> results = new ArrayList<>();
+        externalBatchService.callAll(urls, results::add);
+
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == 200));
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void testCallAll_ReportsFailuresPerUrl() {
+
+        List<ExternalCallResult> results = new ArrayList<>();
+        externalBatchService.callAll(List.of("not a url", baseUrl + "/missing", "http://127.0.0.1:1/"), results::add);
+
+        assertEquals(3, results.size());
+        ExternalCallResult invalid = results.stream().filter(result -> result.getIndex() == 0).findFirst().orElseThrow();
+        assertEquals("Invalid URL", invalid.getError());
+        ExternalCallResult missing = results.stream().filter(result -> result.getIndex() == 1).findFirst().orElseThrow();
+        assertEquals(404, missing.getStatus());
+        assertNull(missing.getError());
+        ExternalCallResult refused = results.stream().filter(result -> result.getIndex() == 2).findFirst().orElseThrow();
+        assertNull(refused.getStatus());
+        assertNotNull(refused.getError());
+    }
+
+    @Test
+    void testHostOf_FillsInTheDefaultPort() {
+
+        assertEquals("http://example.com:80", ExternalBatchService.hostOf("http://example.com/a"));
+        assertEquals("http://example.com:80", ExternalBatchService.hostOf("HTTP://Example.com:80/b"));
+        assertEquals("https://example.com:443", ExternalBatchService.hostOf("https://example.com/c"));
+        assertEquals("http://example.com:8080", ExternalBatchService.hostOf("http://example.com:8080/d"));
+        assertNull(ExternalBatchService.hostOf("not a url"));
+    }
+
+    @Test
+    void testValidate_RejectsEmptyAndOversizedBatches() {
+
+        assertThrows(IllegalArgumentException.class, () -> externalBatchService.validate(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> externalBatchService.validate(Collections.nCopies(101, baseUrl)));
+        assertThrows(IllegalArgumentException.class, () -> externalBatchService.validate(Arrays.asList(baseUrl, null)));
+    }
+}
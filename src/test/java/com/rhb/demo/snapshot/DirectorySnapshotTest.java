@@ -0,0 +1,69 @@
+package com.rhb.demo.snapshot;
+
+import com.rhb.demo.dto.EmployeePatch;
+import com.rhb.demo.entity.Employee;
+import com.rhb.demo.repository.DepartmentRepository;
+import com.rhb.demo.repository.EmployeeRepository;
+import com.rhb.demo.service.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:directorysnapshot",
+        "spring.jpa.show-sql=false",
+        "app.snapshot.enabled=true"
+})
+class DirectorySnapshotTest {
+
+    @TempDir
+    private static Path directory;
+
+    @Autowired
+    private DirectorySnapshot directorySnapshot;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @DynamicPropertySource
+    static void snapshotPath(DynamicPropertyRegistry registry) {
+        registry.add("app.snapshot.path", () -> directory.resolve("directory.snapshot").toString());
+    }
+
+    @Test
+    void testRestore_ReplacesRowsAndContinuesIds() throws Exception {
+
+        SnapshotFile.Summary written = directorySnapshot.write();
+        employeeService.patchEmployee(1L, new EmployeePatch(null, "Changed", null, 3L));
+        employeeService.deleteEmployees(List.of(2L, 3L));
+
+        SnapshotFile.Summary restored = directorySnapshot.restore();
+
+        assertEquals(4, written.departments());
+        assertEquals(10, written.employees());
+        assertEquals(written, restored);
+        assertEquals(4, departmentRepository.count());
+        assertEquals(10, employeeRepository.count());
+        Employee john = employeeRepository.findById(1L).orElseThrow();
+        assertEquals("Doe", john.getLastName());
+        assertEquals(1L, john.getDepartment().getId());
+        assertEquals(0L, john.getVersion());
+
+        Employee created = employeeService.createEmployee(new Employee(null, "Ada", "Lovelace", "ada.lovelace@example.com", null));
+        assertEquals(11L, created.getId());
+    }
+}
@@ -0,0 +1,99 @@
+package com.rhb.demo.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testWriteAndRead_RestoresEveryRowInOrder() throws IOException {
+
+        Path path = directory.resolve("directory.snapshot");
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.department(1, "Engineering", "San Francisco", 0);
+            writer.department(2, "Remote", null, 3);
+            writer.employee(1, "John", "Doe", "john.doe@example.com", 1L, 0);
+            writer.employee(5, "Jöhn", "Doe", "jöhn.doe@example.com", null, 7);
+            SnapshotFile.Summary summary = writer.commit();
+            assertEquals(2, summary.departments());
+            assertEquals(2, summary.employees());
+            assertEquals(Files.size(path), summary.bytes());
+        }
+
+        List<String> rows = new ArrayList<>();
+        SnapshotFile.read(path, new SnapshotFile.RowHandler() {
+            @Override
+            public void department(long id, String name, String location, long version) {
+                rows.add(id + "," + name + "," + location + "," + version);
+            }
+
+            @Override
+            public void employee(long id, String firstName, String lastName, String email, Long departmentId, long version) {
+                rows.add(id + "," + firstName + "," + lastName + "," + email + "," + departmentId + "," + version);
+            }
+        });
+
+        assertEquals(List.of("1,Engineering,San Francisco,0", "2,Remote,null,3",
+                "1,John,Doe,john.doe@example.com,1,0", "5,Jöhn,Doe,jöhn.doe@example.com,null,7"), rows);
+        assertFalse(Files.exists(directory.resolve("directory.snapshot.tmp")));
+    }
+
+    @Test
+    void testWrite_StoresRepeatedNamesOnce() throws IOException {
+
+        Path path = directory.resolve("directory.snapshot");
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.department(1, "Engineering", "San Francisco", 0);
+            for (long id = 1; id <= 1000; id++) {
+                writer.employee(id, "Alexandria", "Montgomery", id + "@example.com", 1L, 0);
+            }
+            writer.commit();
+        }
+
+        assertTrue(Files.size(path) < 1000 * 60, "rows should reference the names, size was " + Files.size(path));
+    }
+
+    @Test
+    void testRead_RejectsDamagedFile() throws IOException {
+
+        Path path = directory.resolve("directory.snapshot");
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.department(1, "Engineering", "San Francisco", 0);
+            writer.commit();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), SnapshotFile.HEADER_SIZE + 3);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> SnapshotFile.read(path, null));
+        assertTrue(exception.getMessage().startsWith("Snapshot checksum mismatch"));
+    }
+
+    @Test
+    void testClose_WithoutCommitKeepsPreviousSnapshot() throws IOException {
+
+        Path path = directory.resolve("directory.snapshot");
+        Files.writeString(path, "previous");
+
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.department(1, "Engineering", "San Francisco", 0);
+        }
+
+        assertEquals("previous", Files.readString(path));
+        assertFalse(Files.exists(directory.resolve("directory.snapshot.tmp")));
+    }
+}